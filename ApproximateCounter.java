@@ -0,0 +1,198 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * ApproximateCounter.java
+ *
+ * Counts the frequencies of a stream of any length in fixed memory. The hottest keys are
+ * counted in a Hashtable of at most maxTracked entries, and every other occurrence goes to
+ * a CountMinSketch with conservative update. Neither grows once the table is full, so the
+ * memory stays the same whether the stream holds a thousand distinct keys or a billion.
+ * <p>
+ * Until the table is full every new key is inserted with a count of 1, exactly as a plain
+ * Hashtable would count it. After that, a key not in the table is added to the sketch, and
+ * if even the lower bound of its estimate has overtaken the lowest count among SAMPLE_SIZE
+ * randomly sampled table entries, that entry is evicted and the key takes its place with
+ * its estimate as its count. Requiring the lower bound keeps the noise of a saturated
+ * sketch, such as one fed millions of distinct random numbers, from churning the table.
+ * The evicted count is folded into the sketch by raising the key's counters to it, so no
+ * occurrence is lost and none counted twice. Hot keys thus work their way into the table
+ * and are counted exactly from then on, while the long tail stays in the sketch.
+ * </p>
+ * <p>
+ * Every estimate is at least the true count, and with probability 1 - delta exceeds it by
+ * at most epsilon times the number of keys added: the sketch estimates keep that bound, and
+ * a table entry starts from such an estimate and then only counts real occurrences.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class ApproximateCounter {
+
+    /** Default error bound, as a fraction of the number of keys added */
+    public static final double DEFAULT_EPSILON = 1e-4;
+    /** Default probability of an estimate exceeding the error bound */
+    public static final double DEFAULT_DELTA = 0.01;
+    /** Number of table entries sampled for the one to evict */
+    public static final int SAMPLE_SIZE = 8;
+
+    // Load factor of the table when it holds maxTracked keys, below which it never grows
+    private static final double TABLE_LOAD_FACTOR = 0.75;
+
+    private final Hashtable table;
+    private final CountMinSketch sketch;
+    private final int maxTracked;
+    private final SplittableRandom random = new SplittableRandom(0x5EED);
+    private long total;  // Number of keys added
+    private long promotions;  // Number of keys moved from the sketch into the table
+
+    /**
+     * Constructor to set up a counter with the default error bound.
+     *
+     * @param maxTracked the number of keys counted exactly in the table
+     * @param strategy   the table strategy
+     */
+    public ApproximateCounter(int maxTracked, TableType strategy) {
+        this(maxTracked, DEFAULT_EPSILON, DEFAULT_DELTA, strategy);
+    }
+
+    /**
+     * Constructor to set up a counter.
+     *
+     * @param maxTracked the number of keys counted exactly in the table
+     * @param epsilon    the error bound of the sketch, as a fraction of the keys added
+     * @param delta      the probability of exceeding that error bound
+     * @param strategy   the table strategy
+     */
+    public ApproximateCounter(int maxTracked, double epsilon, double delta, TableType strategy) {
+        if (maxTracked < 1) {
+            throw new IllegalArgumentException("Tracked key count must be positive: " + maxTracked);
+        }
+        int capacity = TwinPrimeGenerator.nextCapacity((long) Math.ceil(maxTracked / TABLE_LOAD_FACTOR));
+        this.table = strategy.create(capacity, TABLE_LOAD_FACTOR, HashFunction.IDENTITY);
+        this.sketch = new CountMinSketch(epsilon, delta);
+        this.maxTracked = maxTracked;
+    }
+
+    /**
+     * Counts one occurrence of a key.
+     *
+     * @param key the key to count, which may be a KeyView
+     */
+    public void add(Object key) {
+        total++;
+        if (table.incrementIfPresent(key) > 0) {
+            return;
+        }
+        if (table.getSize() < maxTracked) {
+            table.insert(key);
+            return;
+        }
+
+        // Only a key surely counted more often than an entry takes its slot, so collisions
+        // in the sketch alone never promote a key. Every entry has a count of at least 1.
+        int estimate = sketch.add(key.hashCode());
+        long lowerBound = estimate - getErrorBound();
+        if (lowerBound <= 1) {
+            return;
+        }
+        int victim = sampleLowest();
+        int victimCount = table.frequencies[victim];
+        if (lowerBound > victimCount) {
+            Object victimKey = table.keys[victim];
+            table.remove(victimKey);
+            sketch.raise(victimKey.hashCode(), victimCount);
+            table.insert(key, estimate);
+            promotions++;
+        }
+    }
+
+    /**
+     * Estimates the number of times a key was added.
+     *
+     * @param key the key to look up
+     * @return the estimate with the range of the true count
+     */
+    public FrequencyEstimate estimateFrequency(Object key) {
+        HashObject entry = table.search(key);
+        int estimate = entry != null ? entry.getFrequencyCount() : sketch.estimate(key.hashCode());
+        return new FrequencyEstimate(estimate, Math.max(0, estimate - getErrorBound()), 1 - sketch.getDelta(),
+                entry != null);
+    }
+
+    /**
+     * Finds the k most frequent keys in the table, the heavy hitters of the stream.
+     *
+     * @param k the number of entries to return
+     * @return the entries with the k highest counts, highest first
+     */
+    public List<HashObject> topK(int k) {
+        return table.topK(k);
+    }
+
+    /**
+     * Samples SAMPLE_SIZE occupied slots of the full table.
+     *
+     * @return the sampled slot with the lowest frequency count
+     */
+    private int sampleLowest() {
+        int lowest = -1;
+        for (int sampled = 0; sampled < SAMPLE_SIZE; ) {
+            int slot = random.nextInt(table.capacity);
+            Object slotKey = table.keys[slot];
+            if (slotKey == null || slotKey == Hashtable.TOMBSTONE) {
+                continue;
+            }
+            if (lowest < 0 || table.frequencies[slot] < table.frequencies[lowest]) {
+                lowest = slot;
+            }
+            sampled++;
+        }
+        return lowest;
+    }
+
+    /**
+     * Get the number of keys added, duplicates included.
+     *
+     * @return the total count
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Get the number of keys moved from the sketch into the table.
+     *
+     * @return the promotion count
+     */
+    public long getPromotionCount() {
+        return promotions;
+    }
+
+    /**
+     * Get the largest error of an estimate, with probability 1 - delta.
+     *
+     * @return epsilon times the number of keys added, rounded up
+     */
+    public long getErrorBound() {
+        return (long) Math.ceil(sketch.getEpsilon() * total);
+    }
+
+    /**
+     * Get the table counting the hottest keys.
+     *
+     * @return the table
+     */
+    public Hashtable getTable() {
+        return table;
+    }
+
+    /**
+     * Get the sketch counting every other key.
+     *
+     * @return the sketch
+     */
+    public CountMinSketch getSketch() {
+        return sketch;
+    }
+}
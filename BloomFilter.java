@@ -0,0 +1,208 @@
+/**
+ * BloomFilter.java
+ *
+ * A blocked Bloom filter over the hash codes of a Hashtable's keys, answering "definitely
+ * absent" for most keys that are not in the table without touching the table at all.
+ * Every hash code picks one 512-bit block and sets or tests k bits inside it, so a check
+ * reads one or two cache lines however many bits it tests, at the cost of a slightly
+ * higher false-positive rate than an unblocked filter of the same size.
+ * <p>
+ * Bits are never cleared, so removed keys stay in the filter and only make false
+ * positives more likely. The filter counts the keys added to it, stale ones included, and
+ * reports itself full once there are more than it was sized for, at which point the table
+ * rebuilds it from its live keys.
+ * </p>
+ * <p>
+ * The table reports every check that passed for a key it then did not find, so the filter
+ * can measure its own false-positive rate alongside the rate its size predicts.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class BloomFilter {
+
+    /** Default number of filter bits per key the filter is sized for */
+    public static final int DEFAULT_BITS_PER_KEY = 10;
+
+    // Bits per block, one 64-byte cache line
+    private static final int BLOCK_BITS = 512;
+    private static final int BLOCK_LONGS = BLOCK_BITS / Long.SIZE;
+    // Largest number of blocks, keeping the bit count within an int
+    private static final int MAX_BLOCKS = 1 << 22;
+
+    private final long[] bits;
+    private final int blockMask;  // Number of blocks - 1, a power of two minus one
+    private final int hashCount;  // Number of bits set per key, k
+    private final int expectedKeys;
+
+    private int keys;  // Keys added, including any since removed from the table
+    private long checks;
+    private long negatives;
+    private long falsePositives;
+
+    /**
+     * Constructor to size a filter for a number of keys.
+     *
+     * @param expectedKeys the number of keys the filter is sized for
+     * @param bitsPerKey   the number of filter bits per expected key
+     */
+    public BloomFilter(int expectedKeys, int bitsPerKey) {
+        if (expectedKeys < 1 || bitsPerKey < 1) {
+            throw new IllegalArgumentException("Expected keys and bits per key must be positive");
+        }
+        long wanted = ((long) expectedKeys * bitsPerKey + BLOCK_BITS - 1) / BLOCK_BITS;
+        int blocks = (int) Math.min(MAX_BLOCKS, Long.highestOneBit(Math.max(1, wanted - 1)) << 1);
+        this.bits = new long[blocks * BLOCK_LONGS];
+        this.blockMask = blocks - 1;
+        this.hashCount = Math.max(1, Math.min(16, (int) Math.round(bitsPerKey * Math.log(2))));
+        this.expectedKeys = expectedKeys;
+    }
+
+    /**
+     * Adds a key's hash code to the filter.
+     *
+     * @param hash the hash code of the key
+     */
+    public void add(int hash) {
+        long h = mix(hash);
+        int block = ((int) (h >>> 40) & blockMask) * BLOCK_LONGS;
+        int bit = (int) h & (BLOCK_BITS - 1);
+        int step = ((int) (h >>> 9) & (BLOCK_BITS - 1)) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            bits[block + (bit >>> 6)] |= 1L << bit;
+            bit = (bit + step) & (BLOCK_BITS - 1);
+        }
+        keys++;
+    }
+
+    /**
+     * Checks whether a key might have been added. A false result is always right; a true
+     * result is wrong at about the false-positive rate.
+     *
+     * @param hash the hash code of the key
+     * @return false if the key was definitely never added, true if it may have been
+     */
+    public boolean mightContain(int hash) {
+        checks++;
+        long h = mix(hash);
+        int block = ((int) (h >>> 40) & blockMask) * BLOCK_LONGS;
+        int bit = (int) h & (BLOCK_BITS - 1);
+        int step = ((int) (h >>> 9) & (BLOCK_BITS - 1)) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            if ((bits[block + (bit >>> 6)] & (1L << bit)) == 0) {
+                negatives++;
+                return false;
+            }
+            bit = (bit + step) & (BLOCK_BITS - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Records that a key mightContain passed turned out not to be in the table.
+     */
+    public void recordFalsePositive() {
+        falsePositives++;
+    }
+
+    /**
+     * Checks whether more keys have been added than the filter was sized for.
+     *
+     * @return true if the filter should be rebuilt larger or from fewer keys
+     */
+    public boolean isFull() {
+        return keys > expectedKeys;
+    }
+
+    /**
+     * Get the number of keys added, including any since removed from the table.
+     *
+     * @return the key count
+     */
+    public int getKeyCount() {
+        return keys;
+    }
+
+    /**
+     * Get the number of bits set per key.
+     *
+     * @return k
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Get the size of the filter.
+     *
+     * @return the number of bits
+     */
+    public long getBitCount() {
+        return (long) bits.length * Long.SIZE;
+    }
+
+    /**
+     * Get the number of calls to mightContain.
+     *
+     * @return the check count
+     */
+    public long getCheckCount() {
+        return checks;
+    }
+
+    /**
+     * Get the number of checks that ruled a key out.
+     *
+     * @return the negative count
+     */
+    public long getNegativeCount() {
+        return negatives;
+    }
+
+    /**
+     * Get the number of checks that passed for keys not in the table.
+     *
+     * @return the false-positive count
+     */
+    public long getFalsePositiveCount() {
+        return falsePositives;
+    }
+
+    /**
+     * Computes the measured false-positive rate, the fraction of checks for absent keys
+     * that passed.
+     *
+     * @return the false-positive rate, or 0 if no absent key was checked
+     */
+    public double getFalsePositiveRate() {
+        long absent = negatives + falsePositives;
+        return absent == 0 ? 0 : (double) falsePositives / absent;
+    }
+
+    /**
+     * Computes the false-positive rate an unblocked filter of this size predicts for the
+     * keys added so far, (1 - e^(-kn/m))^k. The blocked layout runs somewhat above it.
+     *
+     * @return the predicted false-positive rate
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * keys / getBitCount()), hashCount);
+    }
+
+    /**
+     * Spreads a 32-bit hash code over 64 bits with the Murmur3 64-bit finalizer, so the
+     * block and the bits within it come from independent-looking parts.
+     *
+     * @param hash the hash code
+     * @return the mixed 64-bit hash
+     */
+    private static long mix(int hash) {
+        long h = hash & 0xFFFFFFFFL;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * ClockCache.java
+ *
+ * The state of a Hashtable bounded to a maximum number of entries: the position of its
+ * CLOCK hand, the referenced bits of its entries, and the hit, miss and eviction counters
+ * it updates on every insert and search.
+ * <p>
+ * When a new key arrives at a full table, the hand sweeps the slots in order, giving every
+ * entry it passes a second chance: an entry found by an insert or search since the hand
+ * last passed it has its referenced bit cleared and is skipped, and the first entry whose
+ * bit is clear is evicted. Keys counted often keep surviving, keys seen once are evicted
+ * on the next turn, and a key that was hot long ago loses its bit and is eventually
+ * evicted too. The frequency counts of the table are never touched, so they stay exact for
+ * every key still held.
+ * </p>
+ * <p>
+ * Entries move between slots as strategies such as Robin Hood or cuckoo hashing place other
+ * keys, so the referenced bits are not kept per slot but in a bit array of at least
+ * BITS_PER_ENTRY bits per bounded entry, indexed by the mixed hash code of the key. Two keys
+ * sharing a bit share their second chance, which only ever changes which key is evicted.
+ * </p>
+ * <p>
+ * The hand does not move to the adjacent slot but strides about 0.618 of the capacity at a
+ * time, a step coprime with the capacity so every slot is still visited once per turn.
+ * Sweeping adjacent slots would empty the region behind the hand while the region ahead of
+ * it fills back up to far above the average load, building the long clusters linear
+ * probing degrades on; striding spreads consecutive evictions over the whole table.
+ * </p>
+ * <p>
+ * The counters are plain fields written by the thread using the table.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class ClockCache {
+
+    // Fraction of the capacity the hand strides by, 1/phi
+    private static final double STRIDE = 0.6180339887498949;
+    // Least number of referenced bits per bounded entry, keeping shared bits rare
+    private static final int BITS_PER_ENTRY = 8;
+
+    final int maxSize;
+    private final long[] referenced;  // Referenced bits, indexed by bit(hash)
+    private final int bitMask;  // Number of referenced bits minus one, a power of two minus one
+    private int hand;  // Next slot the hand examines
+    private int step;  // Slots the hand moves by, coprime with stepCapacity
+    private int stepCapacity;  // Capacity the step was chosen for
+    long hits;
+    long misses;
+    long evictions;
+
+    /**
+     * Constructor to bound a table to a number of entries.
+     *
+     * @param maxSize the largest number of entries the table may hold
+     */
+    ClockCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        int bits = Long.SIZE;
+        while (bits < (long) BITS_PER_ENTRY * maxSize && bits < 1 << 30) {
+            bits <<= 1;
+        }
+        this.referenced = new long[bits >>> 6];
+        this.bitMask = bits - 1;
+    }
+
+    /**
+     * Records an insert or search that found its key, setting the key's referenced bit.
+     *
+     * @param hash the hash code of the key
+     */
+    void hit(int hash) {
+        hits++;
+        int bit = bit(hash);
+        referenced[bit >>> 6] |= 1L << bit;
+    }
+
+    /**
+     * Gives the entry under the hand its second chance, clearing its referenced bit.
+     *
+     * @param hash the hash code of the entry's key
+     * @return true if the bit was set, so the entry is skipped, or false if it is evicted
+     */
+    boolean secondChance(int hash) {
+        int bit = bit(hash);
+        long mask = 1L << bit;
+        boolean set = (referenced[bit >>> 6] & mask) != 0;
+        referenced[bit >>> 6] &= ~mask;
+        return set;
+    }
+
+    /**
+     * Finds the referenced bit of a key.
+     *
+     * @param hash the hash code of the key
+     * @return the index of the bit
+     */
+    private int bit(int hash) {
+        return HashFunction.fmix32(hash) & bitMask;
+    }
+
+    /**
+     * Moves the hand on by one step.
+     *
+     * @param capacity the capacity of the table
+     * @return the slot the hand was at, for the caller to examine
+     */
+    int advance(int capacity) {
+        if (capacity != stepCapacity) {
+            step = strideFor(capacity);
+            stepCapacity = capacity;
+            hand %= capacity;
+        }
+        int pos = hand;
+        hand += step;
+        if (hand >= capacity) {
+            hand -= capacity;
+        }
+        return pos;
+    }
+
+    /**
+     * Picks the step of the hand for a capacity, the first number at or above STRIDE times
+     * the capacity that shares no factor with it.
+     *
+     * @param capacity the capacity of the table
+     * @return the step, in the range [1, capacity]
+     */
+    private static int strideFor(int capacity) {
+        int step = Math.max(1, (int) (capacity * STRIDE));
+        while (gcd(step, capacity) != 1) {
+            step++;
+        }
+        return step;
+    }
+
+    /**
+     * Computes the greatest common divisor of two positive numbers.
+     *
+     * @param a the first number
+     * @param b the second number
+     * @return the greatest common divisor
+     */
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Get the largest number of entries the table may hold.
+     *
+     * @return the maximum size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the number of inserts and searches that found their key in the table.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Get the number of inserts and searches that did not find their key in the table.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Get the number of entries evicted to make room for new keys.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Computes the fraction of inserts and searches that found their key.
+     *
+     * @return the hit ratio, or 0 if nothing was looked up
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
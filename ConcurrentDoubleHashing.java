@@ -0,0 +1,44 @@
+/**
+ * ConcurrentDoubleHashing.java
+ *
+ * Subclass of ConcurrentHashtable implementing double hashing
+ *
+ * @author Kayden Humphries
+ */
+public class ConcurrentDoubleHashing extends ConcurrentHashtable {
+
+    /**
+     * Constructor to initialize the hash table with a given capacity
+     *
+     * @param capacity the capacity of the hash table
+     */
+    public ConcurrentDoubleHashing(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Primary hash function for double hashing
+     * h1(k) = k mod m, where k is the key and m is capacity of table
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the hash value of the key
+     */
+    @Override
+    public int h1(int hash, int m) {
+        return positiveMod(hash, m);
+    }
+
+    /**
+     * Secondary hash function for double hashing
+     * h2(k) = 1 + k mod (m - 2), where k is the key and m is capacity of table
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the secondary hash value
+     */
+    @Override
+    public int h2(int hash, int m) {
+        return 1 + positiveMod(hash, m - 2);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ConcurrentHashtable.java
+ *
+ * Abstract lock-free open-addressing hash table that many threads can insert into at once.
+ * A new key claims its slot with a compare-and-set on the key array, and frequency counts
+ * are incremented atomically, so concurrent inserts of the same key are all counted.
+ * <p>
+ * Subclasses supply the same h1/h2 probe strategy as the Hashtable subclasses. The table
+ * has a fixed capacity; inserting a new key into a full table throws an exception.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public abstract class ConcurrentHashtable {
+
+    // Parallel arrays holding the key, frequency count and probe count of each slot
+    private final AtomicReferenceArray<Object> keys;
+    private final AtomicIntegerArray frequencies;
+    private final AtomicIntegerArray probes;
+    private final LongAdder size = new LongAdder();  // Current number of elements in the table
+    private final LongAdder totalProbe = new LongAdder();  // Probe count of table
+    protected final int capacity;  // Size of the hash table
+    private HashFunction hashFunction = HashFunction.IDENTITY;
+
+    /**
+     * Constructor to initialize the hash table with a given capacity.
+     *
+     * @param capacity the capacity of the hash table
+     */
+    public ConcurrentHashtable(int capacity) {
+        if (capacity < 3) {
+            throw new IllegalArgumentException("Capacity must be at least 3: " + capacity);
+        }
+        this.capacity = capacity;
+        this.keys = new AtomicReferenceArray<>(capacity);
+        this.frequencies = new AtomicIntegerArray(capacity);
+        this.probes = new AtomicIntegerArray(capacity);
+    }
+
+    /**
+     * Sets the hash function keys are mixed with before h1 and h2 reduce them to the
+     * capacity, matching Hashtable.setHashFunction. Only allowed before any thread inserts.
+     *
+     * @param hashFunction the hash function to use
+     * @throws IllegalStateException if the table is not empty
+     */
+    public void setHashFunction(HashFunction hashFunction) {
+        if (size.sum() != 0) {
+            throw new IllegalStateException("Hash function can only be set on an empty table");
+        }
+        this.hashFunction = hashFunction;
+    }
+
+    /**
+     * Get the hash function keys are mixed with.
+     *
+     * @return the hash function
+     */
+    public HashFunction getHashFunction() {
+        return hashFunction;
+    }
+
+    /**
+     * Primary hash function, mapping a key's hash code to its home slot in a table of
+     * capacity m.
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the home slot of the key in the range [0, m - 1]
+     */
+    public abstract int h1(int hash, int m);
+
+    /**
+     * Secondary hash function, mapping a key's hash code to its probe step size in a
+     * table of capacity m.
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the probe step size (used in double hashing)
+     */
+    public abstract int h2(int hash, int m);
+
+    /**
+     * Insert a key into the hash table. If the key already exists, its frequency count is
+     * incremented. Safe to call from any number of threads at once.
+     *
+     * @param key the key to insert into the table
+     * @return the position in the table the key was inserted
+     * @throws IllegalStateException if the key is new and the table is full
+     */
+    public int insert(Object key) {
+        int hash = hashFunction.hash(key);
+        int pos = positiveMod(h1(hash, capacity), capacity);
+        int stepSize = positiveMod(h2(hash, capacity), capacity);
+
+        for (int probeCount = 1; probeCount <= capacity; probeCount++) {
+            Object slotKey = keys.get(pos);
+            if (slotKey == null) {
+                if (keys.compareAndSet(pos, null, key)) {
+                    frequencies.incrementAndGet(pos);
+                    probes.set(pos, probeCount);
+                    totalProbe.add(probeCount);
+                    size.increment();
+                    return pos;
+                }
+                // Another thread claimed the slot first, check whether it holds our key
+                slotKey = keys.get(pos);
+            }
+            if (slotKey == key || slotKey.equals(key)) {
+                frequencies.incrementAndGet(pos);
+                return pos;
+            }
+            pos = positiveMod(pos + stepSize, capacity);
+        }
+        throw new IllegalStateException("ConcurrentHashtable is full at capacity " + capacity);
+    }
+
+    /**
+     * Search for a key in the hash table
+     *
+     * @param key the key to search for
+     * @return a snapshot HashObject of the key's slot if found, or null if not found
+     */
+    public HashObject search(Object key) {
+        int hash = hashFunction.hash(key);
+        int pos = positiveMod(h1(hash, capacity), capacity);
+        int stepSize = positiveMod(h2(hash, capacity), capacity);
+
+        Object slotKey;
+        for (int probeCount = 0; probeCount < capacity && (slotKey = keys.get(pos)) != null; probeCount++) {
+            if (slotKey.equals(key)) {
+                return new HashObject(slotKey, frequencies.get(pos), probes.get(pos));
+            }
+            pos = positiveMod(pos + stepSize, capacity);
+        }
+        return null;  // Not found
+    }
+
+    /**
+     * Get the current size of the hash table.
+     *
+     * @return the number of elements in the hash table
+     */
+    public int getSize() {
+        return size.intValue();
+    }
+
+    /**
+     * Returns the total probe count
+     *
+     * @return total probe count
+     */
+    public long getProbeCount() {
+        return totalProbe.sum();
+    }
+
+    /**
+     * Sums the frequency counts of every key, which equals the number of inserts once all
+     * inserting threads have finished.
+     *
+     * @return the total frequency count
+     */
+    public long getTotalFrequency() {
+        long total = 0;
+        for (int i = 0; i < capacity; i++) {
+            total += frequencies.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Get the capacity of the hash table.
+     *
+     * @return the capacity of the hash table
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Computes the positive modulus of a dividend and divisor.
+     *
+     * @param dividend the dividend (numerator) of the modulus operation
+     * @param divisor the divisor (denominator) of the modulus operation
+     * @return the positive modulus result in the range [0, divisor - 1]
+     */
+    protected int positiveMod(int dividend, int divisor) {
+        int quotient = dividend % divisor;
+        if (quotient < 0)
+            quotient += divisor;
+        return quotient;
+    }
+
+    /**
+     * Dumps the hashtable to a file in the same format as Hashtable.dumpToFile. Should only
+     * be called once inserting threads have finished.
+     *
+     * @param fileName the file to dump to
+     */
+    public void dumpToFile(String fileName) {
+        try (DumpWriter out = new DumpWriter(fileName)) {
+            for (int i = 0; i < capacity; i++) {
+                Object key = keys.get(i);
+                if (key != null) {
+                    out.writeSlot(i, key, frequencies.get(i), probes.get(i));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Unable to write to file " + fileName);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * ConcurrentLinearProbing.java
+ *
+ * Subclass of ConcurrentHashtable implementing linear probing
+ *
+ * @author Kayden Humphries
+ */
+public class ConcurrentLinearProbing extends ConcurrentHashtable {
+
+    /**
+     * Constructor to initialize the hash table with a given capacity
+     *
+     * @param capacity the capacity of the hash table
+     */
+    public ConcurrentLinearProbing(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Primary hash function for linear probing
+     * h1(k) = k mod m, where k is the key and m is capacity of table
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the hash value of the key
+     */
+    @Override
+    public int h1(int hash, int m) {
+        return positiveMod(hash, m);
+    }
+
+    /**
+     * Secondary hash function for linear probing is 1
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return 1
+     */
+    @Override
+    public int h2(int hash, int m) {
+        return 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+/**
+ * CountMinSketch.java
+ *
+ * A Count-Min sketch of key frequencies in a fixed number of counters: depth rows of width
+ * counters each, where every hash code maps to one counter per row. A key's estimate is the
+ * smallest of its counters, which never falls below its true count and, with probability
+ * at least 1 - delta, exceeds it by at most epsilon times the total count added, for a
+ * width of e / epsilon and a depth of ln(1 / delta).
+ * <p>
+ * Updates are conservative: adding a key only raises those of its counters that hold the
+ * current minimum, since raising the others could not change its estimate. Counters shared
+ * with heavier keys are left alone, which keeps the estimates of light keys much tighter
+ * than a plain Count-Min sketch of the same size without giving up the bound.
+ * </p>
+ * <p>
+ * The counters of a key come from one Murmur3-mixed hash code: row i takes (a + i * b)
+ * modulo the power-of-two width, where a is the low bits of the mixed code and b its high
+ * half made odd, so the rows are close to independent without hashing the key once per row.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class CountMinSketch {
+
+    private final int[] counts;  // Row-major, depth rows of width counters
+    private final int width;  // A power of two
+    private final int depth;
+    private final double epsilon;
+    private final double delta;
+
+    /**
+     * Constructor to size a sketch for an error bound.
+     *
+     * @param epsilon the largest error, as a fraction of the total count, in the range (0, 1)
+     * @param delta   the probability of exceeding that error, in the range (0, 1)
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("Epsilon and delta must be in the range (0, 1)");
+        }
+        long minWidth = (long) Math.ceil(Math.E / epsilon);
+        if (minWidth > 1 << 26) {
+            throw new IllegalArgumentException("Epsilon is too small: " + epsilon);
+        }
+        this.width = Math.max(2, Integer.highestOneBit((int) minWidth - 1) << 1);
+        this.depth = Math.max(1, (int) Math.ceil(Math.log(1 / delta)));
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.counts = new int[width * depth];
+    }
+
+    /**
+     * Counts one more occurrence of a key, raising only the counters at its current minimum.
+     *
+     * @param hash the hash code of the key
+     * @return the key's new estimate
+     */
+    public int add(int hash) {
+        int estimate = estimate(hash);
+        if (estimate < Integer.MAX_VALUE) {
+            raise(hash, estimate + 1);
+            estimate++;
+        }
+        return estimate;
+    }
+
+    /**
+     * Raises every counter of a key to at least a value, so its estimate is at least that
+     * value. Used to fold in a count kept elsewhere, which includes any occurrences the
+     * sketch already saw, without counting them twice.
+     *
+     * @param hash  the hash code of the key
+     * @param value the smallest estimate the key may have
+     */
+    public void raise(int hash, int value) {
+        int h = HashFunction.fmix32(hash);
+        int a = h & (width - 1);
+        int b = (h >>> 16) | 1;  // Odd, so each row's index sequence differs
+        for (int row = 0, base = 0; row < depth; row++, base += width) {
+            int i = base + ((a + row * b) & (width - 1));
+            if (counts[i] < value) {
+                counts[i] = value;
+            }
+        }
+    }
+
+    /**
+     * Estimates the count of a key, the smallest of its counters.
+     *
+     * @param hash the hash code of the key
+     * @return the estimate, never below the key's true count
+     */
+    public int estimate(int hash) {
+        int h = HashFunction.fmix32(hash);
+        int a = h & (width - 1);
+        int b = (h >>> 16) | 1;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0, base = 0; row < depth; row++, base += width) {
+            min = Math.min(min, counts[base + ((a + row * b) & (width - 1))]);
+        }
+        return min;
+    }
+
+    /**
+     * Get the number of counters per row.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the number of rows.
+     *
+     * @return the depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the error bound the sketch was sized for, as a fraction of the total count.
+     *
+     * @return epsilon
+     */
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    /**
+     * Get the probability of an estimate exceeding the error bound.
+     *
+     * @return delta
+     */
+    public double getDelta() {
+        return delta;
+    }
+
+    /**
+     * Get the memory taken by the counters.
+     *
+     * @return the size of the counters in bytes
+     */
+    public long getMemoryBytes() {
+        return 4L * counts.length;
+    }
+}
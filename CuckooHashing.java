@@ -0,0 +1,529 @@
+import java.util.SplittableRandom;
+
+/**
+ * CuckooHashing.java
+ *
+ * Subclass of Hashtable implementing bucketized cuckoo hashing. The slots are split into
+ * buckets of BUCKET_SIZE adjacent slots, and every key may only live in one of two buckets
+ * picked by two hash functions, or in a small stash of STASH_SIZE slots at the end of the
+ * table. A lookup therefore reads at most two buckets and the stash, however full the
+ * table is, so its worst case is as cheap as its average.
+ * <p>
+ * A new key goes into a free slot of either of its buckets. If both are full it evicts a
+ * random resident of one of them, which moves to its own other bucket, evicting in turn if
+ * that is full too. After MAX_DISPLACEMENTS evictions the entry still being carried goes to
+ * the stash, and if the stash is full as well the table is rehashed with new hash
+ * functions. Two buckets of 4 slots per key stop fitting every key at a load of about 0.97,
+ * so a table already above MAX_REHASH_LOAD doubles instead, as does one that fails
+ * MAX_REHASHES rehashes in a row.
+ * </p>
+ * <p>
+ * The bucket count is a power of two, so h1 and h2 reduce a Murmur3-mixed hash code with a
+ * mask; requested capacities are rounded up to a power of two plus the stash. Probe counts
+ * are the number of buckets examined: 1 for an entry in its first bucket, 2 for its second
+ * and 3 for the stash. Removal simply empties the slot, as no probe sequence passes
+ * through it, so the table never holds tombstones.
+ * </p>
+ * <p>
+ * Entries still waiting in the old table during a resize are looked up with the hash
+ * functions the old table was built with, since a rehash of the new table changes them.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class CuckooHashing extends Hashtable {
+
+    /** Number of slots per bucket */
+    public static final int BUCKET_SIZE = 4;
+    /** Number of stash slots, at the end of the table */
+    public static final int STASH_SIZE = 4;
+    /** Evictions an insert may cause before it falls back to the stash */
+    public static final int MAX_DISPLACEMENTS = 500;
+    /** Rehashes with new hash functions tried at one capacity before the table doubles */
+    public static final int MAX_REHASHES = 4;
+    /** Load of the buckets above which a failed insert doubles the table instead of rehashing */
+    public static final double MAX_REHASH_LOAD = 0.95;
+    /** The largest capacity, a power of two of bucket slots plus the stash */
+    public static final int MAX_CAPACITY = (1 << 30) + STASH_SIZE;
+
+    // Added to the seed of the hash functions on every rehash, 2^32/phi
+    private static final int SEED_STEP = 0x9E3779B9;
+
+    private int seed;  // Seed of the hash functions of the current table
+    private int oldSeed;  // Seed of the hash functions of the old table of a resize
+    private int stashed;  // Entries in the stash of the current table
+    private long displacements;
+    private long rehashes;
+    private final SplittableRandom random = new SplittableRandom(0xC0C0);
+
+    // The entry left without a slot by the last failed placeEntry
+    private Object homelessKey;
+    private int homelessHash;
+    private int homelessFrequency;
+
+    /**
+     * Constructor to initialize the hash table with at least a given capacity
+     *
+     * @param capacity the minimum capacity of the hash table, rounded up to a power of two
+     *                 of bucket slots plus the stash
+     */
+    public CuckooHashing(int capacity) {
+        super(capacityAtLeast(capacity));
+    }
+
+    /**
+     * Constructor to initialize the hash table with at least a given capacity and the load
+     * factor at which it grows
+     *
+     * @param capacity      the minimum capacity of the hash table, rounded up to a power of
+     *                      two of bucket slots plus the stash
+     * @param maxLoadFactor the load factor that triggers growth
+     */
+    public CuckooHashing(int capacity, double maxLoadFactor) {
+        super(capacityAtLeast(capacity), maxLoadFactor);
+    }
+
+    /**
+     * Rounds a capacity up to a power of two of at least 2 buckets, plus the stash.
+     *
+     * @param capacity the requested capacity
+     * @return the capacity to use
+     * @throws IllegalArgumentException if the capacity exceeds MAX_CAPACITY
+     */
+    private static int capacityAtLeast(int capacity) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity exceeds " + MAX_CAPACITY + ": " + capacity);
+        }
+        int bucketSlots = Math.max(2 * BUCKET_SIZE, capacity - STASH_SIZE);
+        return Integer.highestOneBit(bucketSlots - 1) * 2 + STASH_SIZE;
+    }
+
+    /**
+     * Primary hash function for cuckoo hashing, the first slot of the key's first bucket
+     * h1(k) = (fmix32(k + seed) &amp; (b - 1)) * 4, where b is the number of buckets
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the first slot of the first bucket
+     */
+    @Override
+    public int h1(int hash, int m) {
+        return firstBucket(hash, m, seed);
+    }
+
+    /**
+     * Secondary hash function for cuckoo hashing, the first slot of the key's second bucket,
+     * the first bucket's index xor an odd number taken from the mixed hash code, so the two
+     * buckets always differ
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the first slot of the second bucket
+     */
+    @Override
+    public int h2(int hash, int m) {
+        return secondBucket(hash, m, seed);
+    }
+
+    /**
+     * Finds the first slot of a key's first bucket.
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table
+     * @param seed the seed of that table's hash functions
+     * @return the first slot of the bucket
+     */
+    private static int firstBucket(int hash, int m, int seed) {
+        return (HashFunction.fmix32(hash + seed) & bucketMask(m)) * BUCKET_SIZE;
+    }
+
+    /**
+     * Finds the first slot of a key's second bucket.
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table
+     * @param seed the seed of that table's hash functions
+     * @return the first slot of the bucket
+     */
+    private static int secondBucket(int hash, int m, int seed) {
+        int mixed = HashFunction.fmix32(hash + seed);
+        int mask = bucketMask(m);
+        int offset = (HashFunction.fmix32(~mixed) | 1) & mask;
+        return ((mixed & mask) ^ offset) * BUCKET_SIZE;
+    }
+
+    /**
+     * Computes the mask reducing a mixed hash code to a bucket index.
+     *
+     * @param m the capacity of the table
+     * @return the number of buckets - 1
+     */
+    private static int bucketMask(int m) {
+        return (m - STASH_SIZE) / BUCKET_SIZE - 1;
+    }
+
+    /**
+     * Doubles the bucket slots of the table, keeping the stash.
+     *
+     * @param capacity the current capacity
+     * @return the new capacity
+     * @throws IllegalArgumentException if the table is already at MAX_CAPACITY
+     */
+    @Override
+    protected int nextCapacity(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity cannot grow past " + MAX_CAPACITY);
+        }
+        return 2 * (capacity - STASH_SIZE) + STASH_SIZE;
+    }
+
+    /**
+     * Allocates empty slot arrays with an empty stash. When a resize is starting, the
+     * current arrays have just become the old table, so the seed it was built with is kept
+     * for looking up its entries.
+     *
+     * @param capacity the number of slots
+     */
+    @Override
+    protected void allocate(int capacity) {
+        if (oldKeys != null && oldKeys == keys) {
+            oldSeed = seed;
+        }
+        super.allocate(capacity);
+        stashed = 0;
+    }
+
+    /**
+     * Looks for a key in its two buckets and then the stash, which in the current table is
+     * skipped while empty. The number of buckets examined, counting the stash as one, is
+     * left in findProbes.
+     *
+     * @param k    the keys of the table to probe
+     * @param h    the cached hash codes of that table
+     * @param p    the probe counts of that table
+     * @param m    the capacity of that table
+     * @param key  the key to look for
+     * @param hash the hash code of the key
+     * @return the slot holding the key, or -1 if the key is not in the table
+     */
+    @Override
+    protected int find(Object[] k, int[] h, int[] p, int m, Object key, int hash) {
+        boolean current = k == keys;
+        int tableSeed = current ? seed : oldSeed;
+
+        int slot = findInRange(k, h, firstBucket(hash, m, tableSeed), BUCKET_SIZE, key, hash);
+        if (slot >= 0) {
+            findProbes = 1;
+            return slot;
+        }
+        slot = findInRange(k, h, secondBucket(hash, m, tableSeed), BUCKET_SIZE, key, hash);
+        if (slot >= 0 || (current && stashed == 0)) {
+            findProbes = 2;
+            return slot;
+        }
+        findProbes = 3;
+        return findInRange(k, h, m - STASH_SIZE, STASH_SIZE, key, hash);
+    }
+
+    /**
+     * Compares a key against a run of adjacent slots, a bucket or the stash.
+     *
+     * @param k     the keys of the table
+     * @param h     the cached hash codes of that table
+     * @param from  the first slot of the run
+     * @param n     the number of slots in the run
+     * @param key   the key to look for
+     * @param hash  the hash code of the key
+     * @return the slot holding the key, or -1 if it is not in the run
+     */
+    private static int findInRange(Object[] k, int[] h, int from, int n, Object key, int hash) {
+        for (int slot = from; slot < from + n; slot++) {
+            Object slotKey;
+            if (h[slot] == hash && (slotKey = k[slot]) != null && slotKey != TOMBSTONE
+                    && keysEqual(slotKey, key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Places a key known to be absent, displacing residents as needed, and rehashes or
+     * doubles the table if some entry is left without a slot.
+     *
+     * @param key       the key to place
+     * @param hash      the hash code of the key
+     * @param frequency the frequency count of the key
+     * @return the slot the key was placed in
+     */
+    @Override
+    protected int place(Object key, int hash, int frequency) {
+        int pos = placeEntry(key, hash, frequency);
+        if (pos >= 0) {
+            return pos;
+        }
+        boolean nearlyFull = size > MAX_REHASH_LOAD * (capacity - STASH_SIZE) && capacity < MAX_CAPACITY;
+        if (nearlyFull) {
+            recordOverflow();
+        }
+        rehash(nearlyFull ? nextCapacity(capacity) : capacity);
+        return locate(key, hash);
+    }
+
+    /**
+     * Puts an entry into a free slot of one of its buckets, or failing that evicts random
+     * residents along a walk of at most MAX_DISPLACEMENTS steps, then tries the stash. If
+     * the stash is full too, the entry still being carried, which may be the one being
+     * placed, is left in the homeless fields.
+     *
+     * @param key       the key to place
+     * @param hash      the hash code of the key
+     * @param frequency the frequency count of the key
+     * @return the slot the key ended up in, or -1 if an entry was left homeless
+     */
+    private int placeEntry(Object key, int hash, int frequency) {
+        int first = firstBucket(hash, capacity, seed);
+        int slot = freeSlot(first, BUCKET_SIZE);
+        if (slot < 0) {
+            slot = freeSlot(secondBucket(hash, capacity, seed), BUCKET_SIZE);
+        }
+        if (slot >= 0) {
+            store(slot, key, hash, frequency);
+            return slot;
+        }
+
+        // Both buckets are full: walk a chain of evictions from a random one of them
+        Object placed = key;
+        int placedAt = -1;
+        int bucket = random.nextBoolean() ? first : secondBucket(hash, capacity, seed);
+        for (int step = 0; step < MAX_DISPLACEMENTS; step++) {
+            int victim = bucket + random.nextInt(BUCKET_SIZE);
+            Object victimKey = keys[victim];
+            int victimHash = hashes[victim];
+            int victimFrequency = frequencies[victim];
+            totalProbe -= probes[victim];
+            store(victim, key, hash, frequency);
+            if (key == placed) {
+                placedAt = victim;
+            } else if (victimKey == placed) {
+                placedAt = -1;
+            }
+            displacements++;
+
+            key = victimKey;
+            hash = victimHash;
+            frequency = victimFrequency;
+            int home = firstBucket(hash, capacity, seed);
+            bucket = bucket == home ? secondBucket(hash, capacity, seed) : home;
+            slot = freeSlot(bucket, BUCKET_SIZE);
+            if (slot >= 0) {
+                store(slot, key, hash, frequency);
+                return key == placed ? slot : placedAt;
+            }
+        }
+
+        slot = freeSlot(capacity - STASH_SIZE, STASH_SIZE);
+        if (slot >= 0) {
+            store(slot, key, hash, frequency);
+            return key == placed ? slot : placedAt;
+        }
+        homelessKey = key;
+        homelessHash = hash;
+        homelessFrequency = frequency;
+        return -1;
+    }
+
+    /**
+     * Finds the first empty slot of a bucket or the stash.
+     *
+     * @param from the first slot of the bucket or stash
+     * @param n    the number of slots in it
+     * @return the empty slot, or -1 if every slot is taken
+     */
+    private int freeSlot(int from, int n) {
+        for (int slot = from; slot < from + n; slot++) {
+            if (keys[slot] == null) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes an entry into a slot of the current table, with the probe count of the bucket
+     * the slot is in, and adds that probe count to the total.
+     *
+     * @param slot      the slot to write
+     * @param key       the key of the entry
+     * @param hash      the hash code of the key
+     * @param frequency the frequency count of the key
+     */
+    private void store(int slot, Object key, int hash, int frequency) {
+        int probeCount;
+        if (slot >= capacity - STASH_SIZE) {
+            probeCount = 3;
+            stashed++;
+        } else {
+            probeCount = slot - slot % BUCKET_SIZE == firstBucket(hash, capacity, seed) ? 1 : 2;
+        }
+        keys[slot] = key;
+        hashes[slot] = hash;
+        frequencies[slot] = frequency;
+        probes[slot] = probeCount;
+        totalProbe += probeCount;
+    }
+
+    /**
+     * Finds the slot holding a key just placed, by identity.
+     *
+     * @param key  the key
+     * @param hash the hash code of the key
+     * @return the slot holding the key
+     */
+    private int locate(Object key, int hash) {
+        for (int slot = capacity - STASH_SIZE; slot < capacity; slot++) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        for (int from : new int[]{firstBucket(hash, capacity, seed), secondBucket(hash, capacity, seed)}) {
+            for (int slot = from; slot < from + BUCKET_SIZE; slot++) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+        }
+        throw new IllegalStateException("Placed key not found");
+    }
+
+    /**
+     * Rebuilds the current table with new hash functions, placing every entry and the
+     * homeless one if there is one again. An attempt that leaves an entry homeless starts over with the
+     * next seed, and after MAX_REHASHES failed attempts the capacity doubles. An old table
+     * still being migrated is left as is.
+     *
+     * @param newCapacity the capacity of the first attempt
+     */
+    private void rehash(int newCapacity) {
+        Object[] liveKeys = keys;
+        int[] liveHashes = hashes;
+        int[] liveFrequencies = frequencies;
+        for (int i = 0; i < liveKeys.length; i++) {
+            if (liveKeys[i] != null) {
+                totalProbe -= probes[i];
+            }
+        }
+        Object extraKey = homelessKey;
+        int extraHash = homelessHash;
+        int extraFrequency = homelessFrequency;
+        homelessKey = null;
+
+        for (int attempt = 1; ; attempt++) {
+            if (attempt > MAX_REHASHES) {
+                try {
+                    newCapacity = nextCapacity(newCapacity);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalStateException("Hashtable cannot grow past capacity " + newCapacity);
+                }
+                attempt = 1;
+            }
+            seed += SEED_STEP;
+            rehashes++;
+            allocate(newCapacity);
+            capacity = newCapacity;
+
+            long probeTotal = totalProbe;
+            boolean placedAll = extraKey == null || placeEntry(extraKey, extraHash, extraFrequency) >= 0;
+            for (int i = 0; placedAll && i < liveKeys.length; i++) {
+                if (liveKeys[i] != null) {
+                    placedAll = placeEntry(liveKeys[i], liveHashes[i], liveFrequencies[i]) >= 0;
+                }
+            }
+            if (placedAll) {
+                return;
+            }
+            totalProbe = probeTotal;
+            homelessKey = null;
+        }
+    }
+
+    /**
+     * Empties the slot of the removed entry. Lookups never pass through other slots, so
+     * no tombstone is needed.
+     *
+     * @param pos the slot holding the entry to remove
+     */
+    @Override
+    protected void removeAt(int pos) {
+        if (pos >= capacity - STASH_SIZE) {
+            stashed--;
+        }
+        keys[pos] = null;
+        totalProbe -= probes[pos];
+        size--;
+    }
+
+    /**
+     * Rebuilds the table at the same capacity with new hash functions. The table never
+     * holds tombstones, so this only happens when asked for directly.
+     */
+    @Override
+    protected void compact() {
+        finishMigration();
+        rehash(capacity);
+    }
+
+    /**
+     * Recounts the stash of a table restored from a snapshot and checks that every entry
+     * is in one of its buckets under the current hash functions. The seed is not saved, so
+     * a table that had been rehashed is rehashed again.
+     */
+    @Override
+    protected void restored() {
+        boolean reachable = true;
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] == TOMBSTONE) {
+                keys[i] = null;
+            } else if (keys[i] != null) {
+                if (i >= capacity - STASH_SIZE) {
+                    stashed++;
+                } else {
+                    int bucket = i - i % BUCKET_SIZE;
+                    reachable &= bucket == firstBucket(hashes[i], capacity, seed)
+                            || bucket == secondBucket(hashes[i], capacity, seed);
+                }
+            }
+        }
+        tombstones = 0;
+        if (!reachable) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * Get the number of residents evicted to make room for another entry.
+     *
+     * @return the displacement count
+     */
+    public long getDisplacementCount() {
+        return displacements;
+    }
+
+    /**
+     * Get the number of times the table was rebuilt with new hash functions.
+     *
+     * @return the rehash count
+     */
+    public long getRehashCount() {
+        return rehashes;
+    }
+
+    /**
+     * Get the number of entries in the stash of the current table.
+     *
+     * @return the stash size
+     */
+    public int getStashSize() {
+        return stashed;
+    }
+}
@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.Random;
+
+/**
+ * DataSource.java
+ *
+ * Produces the input stream of one of the experiment's data sources as key objects, in the
+ * same order HashtableExperiment's loaders insert them: seeded random Integers, Dates one
+ * second apart starting at the seed, or the lines of "word-list.txt".
+ *
+ * @author Kayden Humphries
+ */
+public class DataSource implements AutoCloseable {
+
+    private final int dataSource;
+    private final Random rand;
+    private long currentTime;
+    private final MappedLineReader reader;
+
+    /**
+     * Opens the input stream of a data source.
+     *
+     * @param dataSource the data source type (1 = random numbers, 2 = dates, 3 = word list)
+     * @param seed       the random seed, or the first date in milliseconds
+     * @throws IOException if the word list cannot be read
+     */
+    public DataSource(int dataSource, long seed) throws IOException {
+        if (dataSource < 1 || dataSource > 3) {
+            throw new IllegalArgumentException("Invalid data source: " + dataSource);
+        }
+        this.dataSource = dataSource;
+        this.rand = dataSource == 1 ? new Random(seed) : null;
+        this.currentTime = seed;
+        this.reader = dataSource == 3 ? openWordList() : null;
+    }
+
+    /**
+     * Opens "word-list.txt" for reading.
+     *
+     * @return A reader over the lines of the word list
+     * @throws IOException if the file cannot be read
+     */
+    public static MappedLineReader openWordList() throws IOException {
+        try {
+            return new MappedLineReader(Path.of("word-list.txt"));
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Error: word-list.txt not found.");
+        }
+    }
+
+    /**
+     * Returns the next key of the stream.
+     *
+     * @return the next key, or null once the word list is exhausted
+     * @throws IOException if the word list cannot be read
+     */
+    public Object next() throws IOException {
+        return switch (dataSource) {
+            case 1 -> rand.nextInt();
+            case 2 -> {
+                Date date = new Date(currentTime);
+                currentTime += 1000;
+                yield date;
+            }
+            default -> {
+                Utf8Slice word = reader.nextLine();
+                yield word == null ? null : word.toString();
+            }
+        };
+    }
+
+    /**
+     * Closes the word list, if one was opened.
+     *
+     * @throws IOException if the word list cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+}
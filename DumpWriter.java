@@ -0,0 +1,126 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * DumpWriter.java
+ *
+ * Streams the lines of a table dump, "table[slot]: key frequency probes", to a file. Each
+ * line is appended straight into one reused buffer that is written out once it fills, so
+ * dumping a slot builds no intermediate strings or HashObjects for int-valued fields.
+ * <p>
+ * The output is byte-identical to printing HashObject.toString() with PrintWriter.println:
+ * the same default charset and the platform line separator.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class DumpWriter implements AutoCloseable {
+
+    // Number of buffered chars that triggers a write to the file
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 256);
+    private char[] chars = new char[FLUSH_THRESHOLD + 256];  // Buffer contents being written
+
+    /**
+     * Constructor to open a dump file, replacing any existing file.
+     *
+     * @param fileName the file to dump to
+     * @throws IOException if the file cannot be opened for writing
+     */
+    public DumpWriter(String fileName) throws IOException {
+        this.out = new OutputStreamWriter(new FileOutputStream(fileName), Charset.defaultCharset());
+    }
+
+    /**
+     * Writes the line of a slot holding an object key.
+     *
+     * @param slot      the slot index
+     * @param key       the key in the slot
+     * @param frequency the frequency count of the key
+     * @param probes    the probe count of the key
+     * @throws IOException if writing to the file fails
+     */
+    public void writeSlot(int slot, Object key, int frequency, int probes) throws IOException {
+        buffer.append("table[").append(slot).append("]: ").append(key.toString());
+        endSlot(frequency, probes);
+    }
+
+    /**
+     * Writes the line of a slot holding a key read as chars, such as a Utf8Slice over
+     * bytes stored outside the heap, without building a String of it.
+     *
+     * @param slot      the slot index
+     * @param key       the chars of the key in the slot
+     * @param frequency the frequency count of the key
+     * @param probes    the probe count of the key
+     * @throws IOException if writing to the file fails
+     */
+    public void writeSlot(int slot, CharSequence key, int frequency, int probes) throws IOException {
+        buffer.append("table[").append(slot).append("]: ").append(key);
+        endSlot(frequency, probes);
+    }
+
+    /**
+     * Writes the line of a slot holding an int key.
+     *
+     * @param slot      the slot index
+     * @param key       the key in the slot
+     * @param frequency the frequency count of the key
+     * @param probes    the probe count of the key
+     * @throws IOException if writing to the file fails
+     */
+    public void writeSlot(int slot, int key, int frequency, int probes) throws IOException {
+        buffer.append("table[").append(slot).append("]: ").append(key);
+        endSlot(frequency, probes);
+    }
+
+    /**
+     * Appends the counts ending a slot's line and writes the buffer out if it is full.
+     *
+     * @param frequency the frequency count of the key
+     * @param probes    the probe count of the key
+     * @throws IOException if writing to the file fails
+     */
+    private void endSlot(int frequency, int probes) throws IOException {
+        buffer.append(' ').append(frequency).append(' ').append(probes).append(LINE_SEPARATOR);
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Writes the buffered lines to the file and empties the buffer.
+     *
+     * @throws IOException if writing to the file fails
+     */
+    private void flushBuffer() throws IOException {
+        int length = buffer.length();
+        if (chars.length < length) {
+            chars = new char[length];
+        }
+        buffer.getChars(0, length, chars, 0);
+        out.write(chars, 0, length);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Writes any buffered lines and closes the file.
+     *
+     * @throws IOException if writing to or closing the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -1,6 +1,16 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Represents the arguments used for configuring an experiment.
- * This class stores the data source type, load factor, and debug level.
+ * This class stores the data source type, load factor, and debug level, along with any
+ * optional settings given as trailing --name=value flags.
  *
  * @author Kayden Humphries
  */
@@ -13,6 +23,42 @@ public class ExperimentArguments {
     public double loadFactor;
     /** The debug level (0 = summary, 1 = summary + dump, 2 = detailed debugging) */
     public int debugLevel;
+    /** The maximum number of threads for the parallel load (0 = single-threaded only) */
+    public int threads;
+    /** The file the sweep results are written to, or null to run a single experiment */
+    public String sweepFile;
+    /** The data sources of the sweep */
+    public int[] sweepSources;
+    /** The load factors of the sweep */
+    public double[] sweepLoads;
+    /** The table strategies of the sweep */
+    public List<TableType> sweepStrategies;
+    /** The number of untimed rounds over every sweep cell before the measured one */
+    public int warmup = 1;
+    /** Whether to collect detailed table metrics and publish them over JMX */
+    public boolean metrics;
+    /** The number of most frequent keys printed after each load (0 = none) */
+    public int top;
+    /** Whether to time a miss-heavy search phase with and without a Bloom filter after each load */
+    public boolean bloom;
+    /** Whether to also stream the whole data source through each table bounded as a CLOCK cache */
+    public boolean cache;
+    /** Whether to also count the whole data source exactly and with an ApproximateCounter */
+    public boolean approximate;
+    /** Whether to time every insert and search of each table and print latency percentiles */
+    public boolean latency;
+    /** Whether to compare the heap footprint of word-list tables with keys on and off the heap */
+    public boolean offHeap;
+    /** The files whose words the pipeline counts, or null to run an experiment */
+    public List<Path> pipelineFiles;
+    /** The number of pipeline reader threads (0 = one per file, up to the number of processors) */
+    public int readers;
+    /** The number of pipeline shard tables (0 = the number of processors) */
+    public int shards;
+    /** The number of word batches each pipeline shard queue holds */
+    public int queueCapacity = WordCountPipeline.DEFAULT_QUEUE_CAPACITY;
+    /** The hash functions keys are mixed with, one unless sweeping */
+    public List<HashFunction> hashFunctions = List.of(HashFunction.IDENTITY);
 
     /**
      * Private constructor to initialize experiment arguments.
@@ -33,12 +79,32 @@ public class ExperimentArguments {
     /**
      * Parses command-line arguments and returns an instance of ExperimentArguments.
      *
-     * @param args Command-line arguments: <dataSource> <loadFactor> [<debugLevel>]
+     * @param args Command-line arguments: <dataSource> <loadFactor> [<debugLevel>] [--name=value ...],
+     *             or only option flags when --sweep or --pipeline is given
      * @return ExperimentArguments instance if valid, otherwise null
      */
     public static ExperimentArguments loadArguments(String[] args) {
+        // Split the positional arguments from the trailing option flags
+        int positional = 0;
+        while (positional < args.length && !args[positional].startsWith("--")) {
+            positional++;
+        }
+
+        // A sweep takes its data sources and load factors from its options instead, and a
+        // pipeline its input files
+        if (positional == 0 && args.length > 0) {
+            ExperimentArguments arguments = new ExperimentArguments(0, 0, 0);
+            if (!arguments.loadOptions(args, 0)
+                    || (arguments.sweepFile == null) == (arguments.pipelineFiles == null)
+                    || (arguments.pipelineFiles != null && arguments.hashFunctions.size() != 1)) {
+                printUsage();
+                return null;
+            }
+            return arguments;
+        }
+
         // Validate the number of arguments
-        if (args.length < 2 || args.length > 3) {
+        if (positional < 2 || positional > 3) {
             printUsage();
             return null;
         }
@@ -46,7 +112,7 @@ public class ExperimentArguments {
         // Parse arguments
         int dataSource = Integer.parseInt(args[0]);
         double loadFactor = Double.parseDouble(args[1]);
-        int debugLevel = (args.length == 3) ? Integer.parseInt(args[2]) : 0;
+        int debugLevel = (positional == 3) ? Integer.parseInt(args[2]) : 0;
 
         // Validate argument ranges
         boolean validArgs =
@@ -59,7 +125,159 @@ public class ExperimentArguments {
             return null;
         }
 
-        return new ExperimentArguments(dataSource, loadFactor, debugLevel);
+        ExperimentArguments arguments = new ExperimentArguments(dataSource, loadFactor, debugLevel);
+        if (!arguments.loadOptions(args, positional) || arguments.pipelineFiles != null
+                || (arguments.offHeap && dataSource != 3)
+                || (arguments.sweepFile == null && arguments.hashFunctions.size() != 1)) {
+            printUsage();
+            return null;
+        }
+        return arguments;
+    }
+
+    /**
+     * Checks whether the experiment's keys must go through the Object-keyed tables rather
+     * than the primitive int tables. Only random numbers can use the int tables, and only
+     * when no option relies on a feature the int tables lack: metrics, top keys, the Bloom
+     * filter, cache and approximate modes, latency timing, or a hash function other than the
+     * identity. An option added later that uses a Hashtable-only feature belongs here.
+     *
+     * @return true if the Object-keyed tables are needed, false if the int tables suffice
+     */
+    public boolean needsObjectTable() {
+        return dataSource != 1 || metrics || top > 0 || bloom || cache || approximate || latency
+                || hashFunctions.get(0) != HashFunction.IDENTITY;
+    }
+
+    /**
+     * Parses the option flags from the given index on, then fills in any sweep lists that were
+     * not given: the positional data source and load factor if there are any, otherwise every
+     * data source, a spread of load factors, and every strategy.
+     *
+     * @param args  Command-line arguments
+     * @param first Index of the first option flag
+     * @return true if every option was recognized and valid, false otherwise
+     */
+    private boolean loadOptions(String[] args, int first) {
+        for (int i = first; i < args.length; i++) {
+            if (!loadOption(args[i])) {
+                return false;
+            }
+        }
+
+        if (sweepSources == null) {
+            sweepSources = dataSource != 0 ? new int[]{dataSource} : new int[]{1, 2, 3};
+        }
+        if (sweepLoads == null) {
+            sweepLoads = dataSource != 0 ? new double[]{loadFactor}
+                    : new double[]{0.5, 0.6, 0.7, 0.8, 0.9, 0.95, 0.99};
+        }
+        if (sweepStrategies == null) {
+            sweepStrategies = pipelineFiles != null ? List.of(TableType.DOUBLE_HASHING)
+                    : Arrays.asList(TableType.values());
+        }
+        return true;
+    }
+
+    /**
+     * Parses a single --name=value option flag, or a bare --name switch, into this instance.
+     *
+     * @param option the option flag
+     * @return true if the option was recognized and valid, false otherwise
+     */
+    private boolean loadOption(String option) {
+        if (!option.startsWith("--")) {
+            return false;
+        }
+        int split = option.indexOf('=');
+        if (split < 0) {
+            switch (option.substring(2)) {
+                case "metrics" -> metrics = true;
+                case "bloom" -> bloom = true;
+                case "cache" -> cache = true;
+                case "approximate" -> approximate = true;
+                case "latency" -> latency = true;
+                case "off-heap" -> offHeap = true;
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+        String name = option.substring(2, split);
+        String value = option.substring(split + 1);
+
+        try {
+            switch (name) {
+                case "threads" -> {
+                    threads = Integer.parseInt(value);
+                    return validateRange(threads, 1, 1024);
+                }
+                case "sweep" -> {
+                    sweepFile = value;
+                    return value.endsWith(".csv") || value.endsWith(".json");
+                }
+                case "sources" -> {
+                    sweepSources = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    return Arrays.stream(sweepSources).allMatch(source -> validateRange(source, 1, 3));
+                }
+                case "loads" -> {
+                    sweepLoads = Arrays.stream(value.split(",")).mapToDouble(Double::parseDouble).toArray();
+                    return Arrays.stream(sweepLoads).allMatch(load -> validateRange(load, 0, 1));
+                }
+                case "strategies" -> {
+                    sweepStrategies = new ArrayList<>();
+                    for (String strategy : value.split(",")) {
+                        TableType type = TableType.fromOptionName(strategy);
+                        if (type == null) {
+                            return false;
+                        }
+                        sweepStrategies.add(type);
+                    }
+                    return true;
+                }
+                case "hash" -> {
+                    hashFunctions = new ArrayList<>();
+                    for (String function : value.split(",")) {
+                        HashFunction hashFunction = HashFunction.fromOptionName(function);
+                        if (hashFunction == null) {
+                            return false;
+                        }
+                        hashFunctions.add(hashFunction);
+                    }
+                    return true;
+                }
+                case "pipeline" -> {
+                    pipelineFiles = listFiles(value);
+                    return pipelineFiles != null && !pipelineFiles.isEmpty();
+                }
+                case "readers" -> {
+                    readers = Integer.parseInt(value);
+                    return validateRange(readers, 1, 1024);
+                }
+                case "shards" -> {
+                    shards = Integer.parseInt(value);
+                    return validateRange(shards, 1, 1024);
+                }
+                case "queue" -> {
+                    queueCapacity = Integer.parseInt(value);
+                    return validateRange(queueCapacity, 1, 1 << 20);
+                }
+                case "top" -> {
+                    top = Integer.parseInt(value);
+                    return validateRange(top, 1, 1000);
+                }
+                case "warmup" -> {
+                    warmup = Integer.parseInt(value);
+                    return validateRange(warmup, 0, 100);
+                }
+                default -> {
+                    return false;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
     }
 
     /**
@@ -67,7 +285,9 @@ public class ExperimentArguments {
      */
     private static void printUsage() {
         System.err.println("""
-                Usage: java HashtableExperiment <dataSource> <loadFactor> [<debugLevel>]
+                Usage: java HashtableExperiment <dataSource> <loadFactor> [<debugLevel>] [<options>]
+                       java HashtableExperiment --sweep=<file> [<options>]
+                       java HashtableExperiment --pipeline=<file,dir,...> [<options>]
                 \t<dataSource>
                 \t\t1 ==> random numbers
                 \t\t2 ==> dates
@@ -75,11 +295,66 @@ public class ExperimentArguments {
                 \t<loadFactor>: The ratio of objects to table size, denoted by α = n/m. Range: [0,1]
                 \t<debugLevel> (optional):
                 \t\t0 ==> print summary of experiment - default
-                \t\t1 ==> same as 0 and dump the two hash tables to files at end
+                \t\t1 ==> same as 0 and dump the hash tables to files at end
                 \t\t2 ==> print debugging output for each insert
+                \t<options> (optional):
+                \t\t--threads=<n> ==> also load the data in parallel with 1 up to n threads,
+                \t\t                  or run n sweep cells at once
+                \t\t--sweep=<file> ==> run every combination of the options below in one JVM
+                \t\t                   and write the results to a .csv or .json file
+                \t\t--sources=<1,2,3> ==> data sources of the sweep
+                \t\t--loads=<0.5,0.9,...> ==> load factors of the sweep
+                \t\t--strategies=<linear,double,robin-hood,swiss,triangular,cuckoo,hopscotch> ==> table strategies of the sweep
+                \t\t--warmup=<n> ==> untimed rounds over every sweep cell first - default 1
+                \t\t--hash=<identity|murmur3|xxhash|fibonacci> ==> hash function keys are mixed with
+                \t\t                  - default identity, or a comma-separated list to sweep
+                \t\t--metrics ==> print probe histograms and clusters, and publish them over JMX
+                \t\t--top=<k> ==> print the k most frequent keys of each table
+                \t\t--bloom ==> time searches that mostly miss with and without a Bloom filter
+                \t\t--cache ==> stream the data source through each table bounded to the
+                \t\t                  target size, evicting with CLOCK, and print the hit ratio
+                \t\t--approximate ==> count the whole data source exactly and with the target size
+                \t\t                  of exact keys plus a Count-Min sketch, and compare them
+                \t\t--latency ==> time every insert of the load, then every search of the loaded keys
+                \t\t                  and as many absent ones, and print p50 to p99.9, max latency
+                \t\t                  and bytes allocated per operation
+                \t\t--off-heap ==> with the word list, also load tables keeping their keys as UTF-8 bytes
+                \t\t                  outside the heap, and compare heap footprint and GC time
+                \t\t--pipeline=<file,dir,...> ==> count the words of the files, or of every file in
+                \t\t                  the directories, with sharded tables; --strategies picks
+                \t\t                  the shard strategy - default double
+                \t\t--readers=<n> ==> pipeline reader threads - default one per file up to the processors
+                \t\t--shards=<k> ==> pipeline shard tables - default the number of processors
+                \t\t--queue=<n> ==> word batches each pipeline shard queue holds - default 64
                 """);
     }
 
+    /**
+     * Expands a comma-separated list of files and directories into the regular files it
+     * names, taking the files directly inside each directory in name order.
+     *
+     * @param value The comma-separated paths
+     * @return The files, or null if a path is neither a file nor a readable directory
+     */
+    private static List<Path> listFiles(String value) {
+        List<Path> files = new ArrayList<>();
+        for (String name : value.split(",")) {
+            Path path = Paths.get(name);
+            if (Files.isRegularFile(path)) {
+                files.add(path);
+            } else if (Files.isDirectory(path)) {
+                try (Stream<Path> entries = Files.list(path)) {
+                    entries.filter(Files::isRegularFile).sorted().forEach(files::add);
+                } catch (IOException e) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        return files;
+    }
+
     /**
      * Validates whether a number falls within a given range.
      *
@@ -0,0 +1,310 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ExperimentSweep.java
+ *
+ * Runs every combination of data source, load factor, table strategy and hash function given to
+ * HashtableExperiment in a single JVM, and writes one row of results per combination to a
+ * CSV or JSON file.
+ * <p>
+ * The keys of each data source are generated once up front, so every cell inserts the same
+ * keys in the same order into a fresh table of the same twin prime capacity. A word list with
+ * too few distinct words for a cell's load factor fills that cell with every word it has and
+ * records the shortfall. Strategies that round the capacity, such as to a power of two, are
+ * filled to the same load factor of their own capacity. A table that cannot hold the load
+ * factor and grows, such as hopscotch hashing at 0.99, is marked as overflowed, and its probe
+ * counts are those of the overflowSize keys it held when it first could not place a key. Every cell is first run the configured number of warmup rounds so the
+ * JIT has compiled the insert paths, then run once more with only the inserts timed. Cells run
+ * in parallel on a fork-join pool whose parallelism is the --threads option, or the number of
+ * processors if it is not given; pass --threads=1 when timings must not share the machine with
+ * other cells.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class ExperimentSweep {
+    private static final String[] COLUMNS = {"dataSource", "loadFactor", "strategy", "hash", "capacity", "overflowed",
+            "overflowSize", "shortfall", "size", "inserts", "duplicates", "avgProbes", "maxProbes", "insertMillis", "insertsPerMs", "nanosPerInsert"};
+    private static final Set<String> TEXT_COLUMNS = Set.of("strategy", "hash");
+
+    private final ExperimentArguments arguments;
+    private final int tableSize;
+    private final Map<Integer, Object[]> keys = new HashMap<>();
+    private final Map<Integer, Integer> distinctKeys = new HashMap<>();
+
+    /**
+     * Prepares a sweep over the combinations in the given arguments.
+     *
+     * @param args Command-line arguments encapsulated in an ExperimentArguments object
+     */
+    public ExperimentSweep(ExperimentArguments args) {
+        this.arguments = args;
+        this.tableSize = TwinPrimeGenerator.generateTwinPrime(95500, 96000);
+    }
+
+    /**
+     * The outcome of loading one data source into one table strategy at one load factor.
+     *
+     * @param dataSource   the data source type (1 = random numbers, 2 = dates, 3 = word list)
+     * @param loadFactor   the load factor the table was filled to
+     * @param strategy     the table strategy
+     * @param hashFunction the hash function keys were mixed with
+     * @param capacity     the capacity of the table, which some strategies round
+     * @param overflowed   whether the table could not hold the load factor and grew
+     * @param overflowSize the number of keys in the table when it first could not place a key, or
+     *                     -1 if it never overflowed
+     * @param shortfall    the number of distinct keys the data source was short of the load factor
+     * @param size         the number of distinct keys in the table
+     * @param inserts      the number of insertions, including duplicates
+     * @param probeCount   the total probe count of the table, or of its overflowSize keys if it overflowed
+     * @param maxProbes    the longest probe sequence in the table, or in its overflowSize keys if it
+     *                     overflowed
+     * @param insertNanos  the wall-clock time of the inserts in nanoseconds
+     */
+    private record Result(int dataSource, double loadFactor, TableType strategy, HashFunction hashFunction,
+                          int capacity, boolean overflowed, int overflowSize, int shortfall, int size, int inserts,
+                          long probeCount, int maxProbes, long insertNanos) {
+    }
+
+    /**
+     * Runs the warmup rounds and the measured round, then prints and writes the results.
+     */
+    public void run() {
+        double maxLoad = Arrays.stream(arguments.sweepLoads).max().orElse(0);
+        int maxCapacity = tableSize;
+        for (TableType strategy : arguments.sweepStrategies) {
+            maxCapacity = Math.max(maxCapacity, strategy.create(tableSize).getCapacity());
+        }
+        int maxTarget = (int) Math.ceil(maxCapacity * maxLoad);
+        long currentTime = new Date().getTime();
+        for (int dataSource : arguments.sweepSources) {
+            keys.put(dataSource, generateKeys(dataSource, maxTarget, currentTime));
+            if (distinctKeys.get(dataSource) < maxTarget) {
+                System.out.printf("ExperimentSweep: %s has only %d distinct keys of the %d the largest cell needs\n",
+                        sourceName(dataSource), distinctKeys.get(dataSource), maxTarget);
+            }
+        }
+
+        List<Runnable> cells = new ArrayList<>();
+        List<Result> results = Collections.synchronizedList(new ArrayList<>());
+        for (int dataSource : arguments.sweepSources) {
+            for (double loadFactor : arguments.sweepLoads) {
+                for (TableType strategy : arguments.sweepStrategies) {
+                    for (HashFunction hashFunction : arguments.hashFunctions) {
+                        cells.add(() -> results.add(runCell(dataSource, loadFactor, strategy, hashFunction)));
+                    }
+                }
+            }
+        }
+
+        int parallelism = arguments.threads > 0 ? arguments.threads : Runtime.getRuntime().availableProcessors();
+        System.out.printf("ExperimentSweep: %d cells at table capacity %d, %d warmup round(s), %d thread(s)\n",
+                cells.size(), tableSize, arguments.warmup, parallelism);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int round = 0; round <= arguments.warmup; round++) {
+                results.clear();
+                pool.submit(() -> cells.parallelStream().forEach(Runnable::run)).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Sweep was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Sweep failed.", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        results.sort(Comparator.comparingInt(Result::dataSource)
+                .thenComparingDouble(Result::loadFactor)
+                .thenComparing(Result::strategy)
+                .thenComparing(Result::hashFunction));
+        for (Result result : results) {
+            String probes = result.overflowed() && result.overflowSize() < 0
+                    ? "OVERFLOWED past capacity " + result.capacity() + ", no probe counts"
+                    : result.overflowed()
+                    ? String.format("OVERFLOWED past capacity %d, avg. probes %.2f, max. probes %d at load %.2f",
+                    result.capacity(), averageProbes(result), result.maxProbes(),
+                    (double) result.overflowSize() / result.capacity())
+                    : String.format("avg. probes %.2f, max. probes %d", averageProbes(result), result.maxProbes());
+            if (result.shortfall() > 0) {
+                probes += String.format(", SHORT by %d keys (load %.2f)", result.shortfall(),
+                        (double) result.size() / result.capacity());
+            }
+            System.out.printf("\t\t%-11s %.2f %-18s %-9s %s, %.0f inserts/ms\n",
+                    sourceName(result.dataSource()), result.loadFactor(), result.strategy().getLabel(),
+                    result.hashFunction().getOptionName(), probes, insertsPerMs(result));
+        }
+        writeResults(results);
+    }
+
+    /**
+     * Fills a fresh table of one strategy with the keys of one data source up to one load factor,
+     * or with every key generated if the data source has too few distinct keys to reach it.
+     *
+     * @param dataSource   The data source type
+     * @param loadFactor   The load factor to fill the table to
+     * @param strategy     The table strategy
+     * @param hashFunction The hash function keys are mixed with
+     * @return The outcome of the load
+     */
+    private Result runCell(int dataSource, double loadFactor, TableType strategy, HashFunction hashFunction) {
+        Object[] source = keys.get(dataSource);
+        Hashtable table = strategy.create(tableSize, hashFunction);
+        int capacity = table.getCapacity();
+        int targetSize = (int) Math.ceil(capacity * loadFactor);
+        int shortfall = Math.max(0, targetSize - distinctKeys.get(dataSource));
+
+        int count = 0;
+        long start = System.nanoTime();
+        while (table.getSize() < targetSize && count < source.length) {
+            table.insert(source[count++]);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (table.getCapacity() != capacity) {
+            // The probe counts of the grown table are of a lower load, so report those up to the overflow
+            return new Result(dataSource, loadFactor, strategy, hashFunction, capacity, true, table.getOverflowSize(),
+                    shortfall, table.getSize(), count, table.getOverflowProbeCount(),
+                    table.getOverflowMaxProbeCount(), elapsed);
+        }
+        return new Result(dataSource, loadFactor, strategy, hashFunction, capacity, false, -1,
+                shortfall, table.getSize(), count, table.getProbeCount(),
+                table.getMaxProbeCount(), elapsed);
+    }
+
+    /**
+     * Generates keys of a data source until the stream has produced the given number of distinct
+     * keys, so every load factor of the sweep can be reached, or until the word list runs out.
+     * The number of distinct keys generated is recorded in distinctKeys.
+     *
+     * @param dataSource  The data source type
+     * @param distinct    The number of distinct keys needed
+     * @param currentTime The current time to be used as a seed
+     * @return The generated keys in stream order
+     */
+    private Object[] generateKeys(int dataSource, int distinct, long currentTime) {
+        List<Object> generated = new ArrayList<>();
+        Set<Object> seen = new HashSet<>();
+        try (DataSource source = new DataSource(dataSource, currentTime)) {
+            while (seen.size() < distinct) {
+                Object key = source.next();
+                if (key == null) {
+                    break;
+                }
+                generated.add(key);
+                seen.add(key);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error: unable to read word-list.txt.", e);
+        }
+        distinctKeys.put(dataSource, seen.size());
+        return generated.toArray();
+    }
+
+    /**
+     * Writes the results as CSV or JSON, depending on the extension of the sweep file.
+     *
+     * @param results The results to write
+     */
+    private void writeResults(List<Result> results) {
+        boolean json = arguments.sweepFile.endsWith(".json");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Path.of(arguments.sweepFile)))) {
+            if (json) {
+                out.println("[");
+            } else {
+                out.println(String.join(",", COLUMNS));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                String[] values = row(results.get(i));
+                if (json) {
+                    StringJoiner fields = new StringJoiner(", ", "  {", i + 1 < results.size() ? "}," : "}");
+                    for (int c = 0; c < COLUMNS.length; c++) {
+                        String value = values[c] == null ? "null"
+                                : TEXT_COLUMNS.contains(COLUMNS[c]) ? "\"" + values[c] + "\"" : values[c];
+                        fields.add("\"" + COLUMNS[c] + "\": " + value);
+                    }
+                    out.println(fields);
+                } else {
+                    out.println(String.join(",", Arrays.stream(values).map(v -> v == null ? "" : v).toList()));
+                }
+            }
+            if (json) {
+                out.println("]");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error: unable to write " + arguments.sweepFile + ".", e);
+        }
+        System.out.println("ExperimentSweep: wrote " + results.size() + " results to " + arguments.sweepFile);
+    }
+
+    /**
+     * Lays out one result in the order of the columns.
+     *
+     * @param result The result
+     * @return The formatted column values, with null for the overflow size of a table that did not
+     *         overflow and for the probe counts of one that grew without recording its overflow
+     */
+    private String[] row(Result result) {
+        boolean probed = !result.overflowed() || result.overflowSize() >= 0;
+        return new String[]{
+                String.valueOf(result.dataSource()),
+                String.valueOf(result.loadFactor()),
+                result.strategy().getOptionName(),
+                result.hashFunction().getOptionName(),
+                String.valueOf(result.capacity()),
+                String.valueOf(result.overflowed()),
+                result.overflowSize() < 0 ? null : String.valueOf(result.overflowSize()),
+                String.valueOf(result.shortfall()),
+                String.valueOf(result.size()),
+                String.valueOf(result.inserts()),
+                String.valueOf(result.inserts() - result.size()),
+                probed ? String.format(Locale.ROOT, "%.4f", averageProbes(result)) : null,
+                probed ? String.valueOf(result.maxProbes()) : null,
+                String.format(Locale.ROOT, "%.3f", result.insertNanos() / 1_000_000.0),
+                String.format(Locale.ROOT, "%.1f", insertsPerMs(result)),
+                String.format(Locale.ROOT, "%.1f", (double) result.insertNanos() / result.inserts())
+        };
+    }
+
+    /**
+     * Computes the average probe count of a result, over the keys its probe count covers.
+     *
+     * @param result The result
+     * @return The average number of probes per key
+     */
+    private static double averageProbes(Result result) {
+        return (double) result.probeCount() / (result.overflowed() ? result.overflowSize() : result.size());
+    }
+
+    /**
+     * Computes the insert throughput of a result.
+     *
+     * @param result The result
+     * @return The number of inserts per millisecond
+     */
+    private static double insertsPerMs(Result result) {
+        return result.inserts() / (result.insertNanos() / 1_000_000.0);
+    }
+
+    /**
+     * Returns the name of a data source for printed output.
+     *
+     * @param dataSource The data source type
+     * @return The name of the data source
+     */
+    private static String sourceName(int dataSource) {
+        return switch (dataSource) {
+            case 1 -> "Random";
+            case 2 -> "Dates";
+            default -> "Word-List";
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+/**
+ * FrequencyEstimate.java
+ *
+ * The answer of ApproximateCounter.estimateFrequency: an estimated count together with the
+ * range the true count lies in. The estimate never falls below the true count, so it is
+ * also the upper bound; the lower bound holds with probability at least the confidence.
+ *
+ * @author Kayden Humphries
+ */
+public class FrequencyEstimate {
+
+    private final int estimate;
+    private final long lowerBound;
+    private final double confidence;
+    private final boolean tracked;
+
+    /**
+     * Constructor to describe an estimate.
+     *
+     * @param estimate   the estimated count, never below the true count
+     * @param lowerBound the count the true count is at least, with the given confidence
+     * @param confidence the probability that the lower bound holds
+     * @param tracked    whether the key is counted exactly in the table
+     */
+    public FrequencyEstimate(int estimate, long lowerBound, double confidence, boolean tracked) {
+        this.estimate = estimate;
+        this.lowerBound = lowerBound;
+        this.confidence = confidence;
+        this.tracked = tracked;
+    }
+
+    /**
+     * Get the estimated count, which is also the upper bound on the true count.
+     *
+     * @return the estimate
+     */
+    public int getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * Get the count the true count is at least, with probability getConfidence.
+     *
+     * @return the lower bound
+     */
+    public long getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Get the probability that the lower bound holds.
+     *
+     * @return 1 - delta of the sketch
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Checks whether the key is in the table, where every occurrence since it was admitted
+     * is counted exactly on top of the estimate it was admitted with.
+     *
+     * @return true if the key is in the table, false if only the sketch counts it
+     */
+    public boolean isTracked() {
+        return tracked;
+    }
+
+    /**
+     * Returns a string such as "42 [40, 42]" with the estimate and the range of the true
+     * count.
+     *
+     * @return the estimate and its range
+     */
+    @Override
+    public String toString() {
+        return estimate + " [" + lowerBound + ", " + estimate + "]";
+    }
+}
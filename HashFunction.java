@@ -0,0 +1,141 @@
+/**
+ * HashFunction.java
+ *
+ * Strategies for turning a key into the hash code a Hashtable derives its probe sequence
+ * from. Keys with regular hash codes, such as Dates one second apart or sequential Integers,
+ * land in runs of adjacent home slots under the identity strategy; the mixing strategies
+ * spread them out before h1 and h2 reduce them to the capacity.
+ * <p>
+ * Every strategy hashes a KeyView the same as the key it stands for, so lookups by view
+ * still find materialized keys.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public enum HashFunction {
+    /** The key's own hashCode, unchanged */
+    IDENTITY("identity") {
+        @Override
+        public int hash(Object key) {
+            return key.hashCode();
+        }
+    },
+    /** The key's hashCode run through the Murmur3 32-bit finalizer */
+    MURMUR3("murmur3") {
+        @Override
+        public int hash(Object key) {
+            return fmix32(key.hashCode());
+        }
+    },
+    /**
+     * For character sequences, an xxHash32-style hash of the chars read two per 32-bit lane;
+     * for other keys, the xxHash32 avalanche of their hashCode
+     */
+    XXHASH("xxhash") {
+        @Override
+        public int hash(Object key) {
+            if (!(key instanceof CharSequence chars)) {
+                return avalanche(key.hashCode());
+            }
+            int length = chars.length();
+            int h = PRIME32_5 + 2 * length;
+            int i = 0;
+            for (; i + 1 < length; i += 2) {
+                h += (chars.charAt(i) | chars.charAt(i + 1) << 16) * PRIME32_3;
+                h = Integer.rotateLeft(h, 17) * PRIME32_4;
+            }
+            if (i < length) {
+                h += chars.charAt(i) * PRIME32_5;
+                h = Integer.rotateLeft(h, 11) * PRIME32_1;
+            }
+            return avalanche(h);
+        }
+    },
+    /** The high 32 bits of the key's hashCode multiplied by 2^64 divided by the golden ratio */
+    FIBONACCI("fibonacci") {
+        @Override
+        public int hash(Object key) {
+            return (int) ((key.hashCode() * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    };
+
+    private static final int PRIME32_1 = 0x9E3779B1;
+    private static final int PRIME32_2 = 0x85EBCA77;
+    private static final int PRIME32_3 = 0xC2B2AE3D;
+    private static final int PRIME32_4 = 0x27D4EB2F;
+    private static final int PRIME32_5 = 0x165667B1;
+
+    private final String optionName;
+
+    /**
+     * Constructor to name a hash function.
+     *
+     * @param optionName the name used on the command line
+     */
+    HashFunction(String optionName) {
+        this.optionName = optionName;
+    }
+
+    /**
+     * Computes the hash code of a key.
+     *
+     * @param key the key to hash
+     * @return the hash code
+     */
+    public abstract int hash(Object key);
+
+    /**
+     * Finds the hash function with the given command-line name.
+     *
+     * @param optionName the command-line name
+     * @return the hash function, or null if there is none with that name
+     */
+    public static HashFunction fromOptionName(String optionName) {
+        for (HashFunction function : values()) {
+            if (function.optionName.equals(optionName)) {
+                return function;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the name used to pick this hash function on the command line.
+     *
+     * @return the command-line name
+     */
+    public String getOptionName() {
+        return optionName;
+    }
+
+    /**
+     * Applies the Murmur3 32-bit finalizer to a hash, after which every output bit depends
+     * on every input bit.
+     *
+     * @param h the hash to mix
+     * @return the mixed hash
+     */
+    public static int fmix32(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Applies the final xxHash32 mixing rounds to a hash.
+     *
+     * @param h the hash to mix
+     * @return the mixed hash
+     */
+    private static int avalanche(int h) {
+        h ^= h >>> 15;
+        h *= PRIME32_2;
+        h ^= h >>> 13;
+        h *= PRIME32_3;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -27,6 +27,19 @@ public class HashObject {
         this.probeCount = 0;     // initialize probe count to 0
     }
 
+    /**
+     * Constructor to materialize a HashObject from a table slot.
+     *
+     * @param key            the key for this object
+     * @param frequencyCount the number of times the key was inserted
+     * @param probeCount     the number of probes it took to insert the key
+     */
+    public HashObject(Object key, int frequencyCount, int probeCount) {
+        this.key = key;
+        this.frequencyCount = frequencyCount;
+        this.probeCount = probeCount;
+    }
+
     /**
      * Retrieves the key of this HashObject.
      *
@@ -43,6 +56,24 @@ public class HashObject {
         this.frequencyCount++;
     }
 
+    /**
+     * Retrieves the number of probes it took to insert this object
+     *
+     * @return the probe count
+     */
+    public int getProbeCount() {
+        return this.probeCount;
+    }
+
+    /**
+     * Retrieves the number of times the key was inserted
+     *
+     * @return the frequency count
+     */
+    public int getFrequencyCount() {
+        return this.frequencyCount;
+    }
+
     /**
      * Sets the probe count to the specified count
      *
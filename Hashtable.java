@@ -1,20 +1,113 @@
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Hashtable.java
  *
  * Abstract class representing a hash table with common insert, search, and utility methods.
+ * <p>
+ * The table grows automatically once inserting a new key would push it past its maximum
+ * load factor. Growth picks the next twin prime capacity and migrates the old slots
+ * incrementally: every insert and search moves a bounded number of slots into the new
+ * table, so no single operation pays for a full rehash.
+ * </p>
+ * <p>
+ * Removed keys leave a tombstone behind so probe sequences passing through the slot stay
+ * intact, and later inserts reuse tombstones. Tombstones still lengthen every probe
+ * sequence that crosses them, so once they exceed a set fraction of the capacity the
+ * table is rebuilt in place at the same capacity, clearing them. It is also rebuilt once
+ * tombstones outnumber the empty slots, so a nearly full table that keeps removing keys
+ * never runs out of the empty slots that end unsuccessful searches.
+ * </p>
+ * <p>
+ * Detailed metrics such as probe count histograms of inserts and searches are only
+ * collected after setMetricsEnabled(true), so they cost a single null check per operation
+ * otherwise. getStats returns a snapshot of them along with the current cluster lengths.
+ * </p>
+ * <p>
+ * insertAll and searchAll process keys in blocks of BATCH_SIZE: every hash code of a block
+ * is computed and every home slot read first, so the cache misses of a whole block are
+ * outstanding at once instead of one after another, and the probe sequences are then walked
+ * in order. The results are the same as inserting or searching the keys one at a time.
+ * </p>
+ * <p>
+ * stream and spliterator expose the entries for parallel scans, splitting the table into
+ * slot ranges, and topK finds the most frequent keys with a bounded heap.
+ * </p>
+ * <p>
+ * setBloomFilterEnabled(true) puts a BloomFilter of the keys' hash codes in front of the
+ * table. Searches, removes and inserts check it first, and a key it rules out skips the
+ * probe walk entirely, so most misses cost one cache line instead of a whole probe
+ * sequence, which under linear probing at high load is long. Every new key is added to the
+ * filter, and it is rebuilt from the live keys when the table grows or once removed keys
+ * have left it holding more keys than it was sized for.
+ * </p>
+ * <p>
+ * setMaxSize bounds the table to a number of entries, turning it into a fixed-memory
+ * frequency cache: a new key arriving at a full table evicts an entry chosen by a CLOCK
+ * sweep over the slots, described in ClockCache, which also counts hits, misses and
+ * evictions. Evictions go through removeAt, so they leave the same tombstones or shifted
+ * runs as remove does and every probe chain stays intact.
+ * </p>
  *
  * @author Kayden Humphries
  */
 public abstract class Hashtable {
 
-    // Array of HashObject to store keys and associated frequency counts
-    protected HashObject[] table;
+    /** Default maximum load factor, only grows once every slot is taken */
+    public static final double DEFAULT_MAX_LOAD_FACTOR = 1.0;
+    /** Default number of old slots migrated per insert or search while resizing */
+    public static final int DEFAULT_MIGRATION_STEP = 16;
+    /** Default fraction of the capacity tombstones may take before the table is rebuilt */
+    public static final double DEFAULT_MAX_TOMBSTONE_RATIO = 0.2;
+    /** Number of keys hashed and touched together by insertAll and searchAll */
+    public static final int BATCH_SIZE = 32;
+
+    // Multiple of the capacity the Bloom filter is sized for, leaving room for the keys
+    // that removes leave in it before it has to be rebuilt
+    private static final double FILTER_KEYS_PER_SLOT = 1.5;
+
+    // Marks a removed slot, or a slot of the old table whose entry has already been migrated
+    protected static final Object TOMBSTONE = new Object();
+
+    // Parallel arrays holding the key, cached hash code, frequency count and probe count
+    // of each slot. An empty slot has a null key.
+    protected Object[] keys;
+    protected int[] hashes;
+    protected int[] frequencies;
+    protected int[] probes;
     protected int size;  // Current number of elements in the table
     protected int capacity;  // Size of the hash table
-    protected int totalProbe;  // Probe count of table
+    protected long totalProbe;  // Probe count of table
+    protected int tombstones;  // Number of removed slots in the current table
+    protected int findProbes;  // Number of slots examined by the last call to find
+
+    // Incremental rehash state, oldKeys is null when no resize is in progress
+    protected Object[] oldKeys;
+    protected int[] oldHashes;
+    protected int[] oldFrequencies;
+    protected int[] oldProbes;
+    protected int oldCapacity;
+    private int migrationCursor;
+
+    private final double maxLoadFactor;
+    private final int migrationStep;
+    private double maxTombstoneRatio = DEFAULT_MAX_TOMBSTONE_RATIO;
+    private HashtableMetrics metrics;  // Null while metrics are disabled
+    private BloomFilter filter;  // Null while the Bloom filter is disabled
+    private ClockCache cache;  // Null while the table is unbounded
+    private HashFunction hashFunction = HashFunction.IDENTITY;
+    private final int[] batchHashes = new int[BATCH_SIZE];  // Hash codes of the block being resolved
+    private int batchSink;  // Keeps the reads of the touch pass from being optimized away
+    // Size, total and longest probe count when a key first could not be placed, size -1 if never
+    private int overflowSize = -1;
+    private long overflowProbeCount;
+    private int overflowMaxProbes;
 
     /**
      * Constructor to initialize the hash table with a given capacity.
@@ -22,77 +115,805 @@ public abstract class Hashtable {
      * @param capacity the capacity of the hash table
      */
     public Hashtable(int capacity) {
+        this(capacity, DEFAULT_MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructor to initialize the hash table with a given capacity and growth policy.
+     *
+     * @param capacity      the initial capacity of the hash table
+     * @param maxLoadFactor the load factor that triggers growth, in the range (0, 1]
+     */
+    public Hashtable(int capacity, double maxLoadFactor) {
+        this(capacity, maxLoadFactor, DEFAULT_MIGRATION_STEP);
+    }
+
+    /**
+     * Constructor to initialize the hash table with a given capacity, growth policy, and
+     * the number of slots to migrate per operation while resizing.
+     *
+     * @param capacity      the initial capacity of the hash table
+     * @param maxLoadFactor the load factor that triggers growth, in the range (0, 1]
+     * @param migrationStep the number of old slots migrated per insert or search
+     */
+    public Hashtable(int capacity, double maxLoadFactor, int migrationStep) {
+        if (capacity < 3) {
+            throw new IllegalArgumentException("Capacity must be at least 3: " + capacity);
+        }
+        if (!(maxLoadFactor > 0 && maxLoadFactor <= 1)) {
+            throw new IllegalArgumentException("Max load factor must be in (0, 1]: " + maxLoadFactor);
+        }
+        if (migrationStep < 1) {
+            throw new IllegalArgumentException("Migration step must be positive: " + migrationStep);
+        }
         this.capacity = capacity;
-        this.table = new HashObject[capacity];
+        allocate(capacity);
         this.size = 0;
+        this.maxLoadFactor = maxLoadFactor;
+        this.migrationStep = migrationStep;
+    }
+
+    /**
+     * Allocates empty slot arrays of the given capacity as the current table. Subclasses
+     * keeping extra per-slot state extend this to allocate it as well; it is first called
+     * from the constructor, before subclass field initializers have run.
+     *
+     * @param capacity the number of slots
+     */
+    protected void allocate(int capacity) {
+        this.keys = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.frequencies = new int[capacity];
+        this.probes = new int[capacity];
     }
 
     /**
-     * Abstract method to be implemented by subclasses for calculating the primary hash value.
+     * Primary hash function, mapping a key's hash code to its home slot in a table of
+     * capacity m.
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the home slot of the key in the range [0, m - 1]
+     */
+    public abstract int h1(int hash, int m);
+
+    /**
+     * Secondary hash function, mapping a key's hash code to its probe step size in a
+     * table of capacity m.
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the probe step size (used in double hashing)
+     */
+    public abstract int h2(int hash, int m);
+
+    /**
+     * Calculates the primary hash value of a key for the current capacity.
      *
      * @param key the key to hash
      * @return the hash value of the key
      */
-    public abstract int h1(Object key);
+    public int h1(Object key) {
+        return h1(hash(key), capacity);
+    }
 
     /**
-     * Abstract method for getting the secondary hash function value (if applicable).
+     * Calculates the secondary hash function value of a key for the current capacity.
      *
      * @param key the key to hash
      * @return the secondary hash value (used in double hashing)
      */
-    public abstract int h2(Object key);
+    public int h2(Object key) {
+        return h2(hash(key), capacity);
+    }
+
+    /**
+     * Computes the hash code the probe sequence of a key is derived from, using the
+     * table's hash function.
+     *
+     * @param key the key to hash
+     * @return the hash code of the key
+     */
+    protected int hash(Object key) {
+        return hashFunction.hash(key);
+    }
+
+    /**
+     * Sets the hash function keys are mixed with before h1 and h2 reduce them to the
+     * capacity. Stored entries would no longer be found, so this is only allowed while the
+     * table has never held a key.
+     *
+     * @param hashFunction the hash function to use
+     * @throws IllegalStateException if the table is not empty
+     */
+    public void setHashFunction(HashFunction hashFunction) {
+        if (size != 0 || tombstones != 0 || oldKeys != null) {
+            throw new IllegalStateException("Hash function can only be set on an empty table");
+        }
+        this.hashFunction = hashFunction;
+    }
+
+    /**
+     * Get the hash function keys are mixed with.
+     *
+     * @return the hash function
+     */
+    public HashFunction getHashFunction() {
+        return hashFunction;
+    }
 
     /**
      * Insert a key into the hash table. If the key already exists, its frequency count is incremented.
+     * The key may be a KeyView, which is only materialized if the key is new. While a resize
+     * is in progress, a duplicate still waiting in the old table is updated in place and its
+     * position in the old table is returned.
      *
      * @param key the key to insert into the table
      * @return the position in the table the key was inserted
      */
     public int insert(Object key) {
-        int hash = positiveMod(h1(key), capacity);
-        int stepSize = positiveMod(h2(key), capacity);
-        int probeCount = 1; // There is a guaranteed probe
+        migrateSome();
+        return insert(key, hash(key), 1);
+    }
 
-        while (table[hash] != null) {
-            if (table[hash].getKey().equals(key)) {
-                table[hash].incrementFrequency();
-                return hash;
+    /**
+     * Insert a key with a starting frequency count, or add the count to the frequency count
+     * of a key already in the table. Otherwise the same as insert(key).
+     *
+     * @param key   the key to insert into the table
+     * @param count the number of occurrences of the key to count, at least 1
+     * @return the position in the table the key was inserted
+     * @throws IllegalArgumentException if count is less than 1
+     */
+    public int insert(Object key, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be positive: " + count);
+        }
+        migrateSome();
+        return insert(key, hash(key), count);
+    }
+
+    /**
+     * Inserts a key whose hash code has already been computed.
+     *
+     * @param key   the key to insert into the table
+     * @param hash  the hash code of the key
+     * @param count the number of occurrences of the key to count
+     * @return the position in the table the key was inserted
+     */
+    private int insert(Object key, int hash, int count) {
+        // A key the filter rules out is new, so both lookups are skipped
+        if (filter == null || filter.mightContain(hash)) {
+            if (oldKeys != null) {
+                int oldPos = find(oldKeys, oldHashes, oldProbes, oldCapacity, key, hash);
+                if (oldPos >= 0) {
+                    oldFrequencies[oldPos] += count;
+                    if (metrics != null) {
+                        metrics.recordDuplicate();
+                    }
+                    if (cache != null) {
+                        cache.hit(hash);
+                    }
+                    return oldPos;
+                }
+            }
+
+            int pos = find(keys, hashes, probes, capacity, key, hash);
+            if (pos >= 0) {
+                frequencies[pos] += count;
+                if (metrics != null) {
+                    metrics.recordDuplicate();
+                }
+                if (cache != null) {
+                    cache.hit(hash);
+                }
+                return pos;
+            }
+            if (filter != null) {
+                filter.recordFalsePositive();
             }
-            hash = positiveMod(hash + stepSize, capacity);
-            probeCount++;
         }
 
-        // Insert new key and update probe count
-        table[hash] = new HashObject(key);
-        table[hash].setProbeCount(probeCount);
+        if (cache != null) {
+            cache.misses++;
+            if (size >= cache.maxSize) {
+                evict();
+            }
+        }
+        if (size + 1 > maxLoadFactor * capacity) {
+            grow();
+        }
 
-        totalProbe += probeCount;
+        // Insert new key and update probe count
         size++;
-        return hash;
+        int pos = place(key instanceof KeyView view ? view.materialize() : key, hash, count);
+        if (metrics != null) {
+            metrics.recordInsert(probes[pos]);
+        }
+        if (filter != null) {
+            filter.add(hash);
+            if (filter.isFull()) {
+                rebuildFilter();
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Increments the frequency count of a key only if it is already in the table, with a
+     * single lookup. It is not counted by the metrics or the cache counters.
+     *
+     * @param key the key to count
+     * @return the new frequency count, or 0 if the key is not in the table
+     */
+    public int incrementIfPresent(Object key) {
+        migrateSome();
+        int hash = hash(key);
+        if (filter != null && !filter.mightContain(hash)) {
+            return 0;
+        }
+
+        int pos = find(keys, hashes, probes, capacity, key, hash);
+        if (pos >= 0) {
+            return ++frequencies[pos];
+        }
+        if (oldKeys != null) {
+            pos = find(oldKeys, oldHashes, oldProbes, oldCapacity, key, hash);
+            if (pos >= 0) {
+                return ++oldFrequencies[pos];
+            }
+        }
+        if (filter != null) {
+            filter.recordFalsePositive();
+        }
+        return 0;
     }
 
     /**
-     * Search for a key in the hash table
+     * Search for a key in the hash table. The returned HashObject is a snapshot of the
+     * key's slot; changing it does not affect the table.
      *
      * @param key the key to search for
      * @return the HashObject containing the key if found, or null if not found
      */
     public HashObject search(Object key) {
-        int hash = h1(key);
-        int stepSize = h2(key);
+        migrateSome();
+        return search(key, hash(key));
+    }
 
-        HashObject hashObject;
-        while ((hashObject = table[hash]) != null) {
-            if (hashObject.getKey().equals(key)) {
-                return table[hash];
+    /**
+     * Searches for a key whose hash code has already been computed.
+     *
+     * @param key  the key to search for
+     * @param hash the hash code of the key
+     * @return the HashObject containing the key if found, or null if not found
+     */
+    private HashObject search(Object key, int hash) {
+        if (filter != null && !filter.mightContain(hash)) {
+            if (metrics != null) {
+                metrics.recordSearch(0, false);
+            }
+            if (cache != null) {
+                cache.misses++;
             }
-            hash = (hash + stepSize) % capacity;
+            return null;  // Ruled out without probing
         }
 
+        int pos = find(keys, hashes, probes, capacity, key, hash);
+        if (pos >= 0) {
+            if (metrics != null) {
+                metrics.recordSearch(findProbes, true);
+            }
+            if (cache != null) {
+                cache.hit(hash);
+            }
+            return new HashObject(keys[pos], frequencies[pos], probes[pos]);
+        }
+        int examined = findProbes;
+        if (oldKeys != null) {
+            pos = find(oldKeys, oldHashes, oldProbes, oldCapacity, key, hash);
+            examined += findProbes;
+            if (pos >= 0) {
+                if (metrics != null) {
+                    metrics.recordSearch(examined, true);
+                }
+                if (cache != null) {
+                    cache.hit(hash);
+                }
+                return new HashObject(oldKeys[pos], oldFrequencies[pos], oldProbes[pos]);
+            }
+        }
+
+        if (metrics != null) {
+            metrics.recordSearch(examined, false);
+        }
+        if (cache != null) {
+            cache.misses++;
+        }
+        if (filter != null) {
+            filter.recordFalsePositive();
+        }
         return null;  // Not found
     }
 
+    /**
+     * Inserts every key of an array, in order.
+     *
+     * @param batch the keys to insert
+     * @return the position each key was inserted at, as insert would return it
+     */
+    public int[] insertAll(Object[] batch) {
+        return insertAll(batch, 0, batch.length);
+    }
+
+    /**
+     * Inserts the keys of a range of an array, in order. KeyViews in the range must each be
+     * a separate object, since they are only resolved after the whole block is hashed.
+     *
+     * @param batch the keys to insert
+     * @param from  the index of the first key to insert
+     * @param to    the index after the last key to insert
+     * @return the position each key was inserted at, as insert would return it
+     */
+    public int[] insertAll(Object[] batch, int from, int to) {
+        int[] positions = new int[to - from];
+        for (int start = from; start < to; start += BATCH_SIZE) {
+            int n = Math.min(BATCH_SIZE, to - start);
+            touchHomeSlots(batch, start, n);
+            for (int i = 0; i < n; i++) {
+                migrateSome();
+                positions[start - from + i] = insert(batch[start + i], batchHashes[i], 1);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Inserts every key an iterator returns, in order, reading it a block at a time.
+     *
+     * @param batch the keys to insert
+     * @return the position each key was inserted at, as insert would return it
+     */
+    public int[] insertAll(Iterator<?> batch) {
+        Object[] block = new Object[BATCH_SIZE];
+        int[] positions = new int[BATCH_SIZE];
+        int count = 0;
+        while (batch.hasNext()) {
+            int n = fill(block, batch);
+            if (count + n > positions.length) {
+                positions = Arrays.copyOf(positions, 2 * positions.length);
+            }
+            System.arraycopy(insertAll(block, 0, n), 0, positions, count, n);
+            count += n;
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * Searches for every key of an array, in order.
+     *
+     * @param batch the keys to search for
+     * @return the result of searching each key, as search would return it
+     */
+    public HashObject[] searchAll(Object[] batch) {
+        return searchAll(batch, 0, batch.length);
+    }
+
+    /**
+     * Searches for the keys of a range of an array, in order.
+     *
+     * @param batch the keys to search for
+     * @param from  the index of the first key to search for
+     * @param to    the index after the last key to search for
+     * @return the result of searching each key, as search would return it
+     */
+    public HashObject[] searchAll(Object[] batch, int from, int to) {
+        HashObject[] results = new HashObject[to - from];
+        for (int start = from; start < to; start += BATCH_SIZE) {
+            int n = Math.min(BATCH_SIZE, to - start);
+            touchHomeSlots(batch, start, n);
+            for (int i = 0; i < n; i++) {
+                migrateSome();
+                results[start - from + i] = search(batch[start + i], batchHashes[i]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Searches for every key an iterator returns, in order, reading it a block at a time.
+     *
+     * @param batch the keys to search for
+     * @return the result of searching each key, as search would return it
+     */
+    public HashObject[] searchAll(Iterator<?> batch) {
+        Object[] block = new Object[BATCH_SIZE];
+        HashObject[] results = new HashObject[BATCH_SIZE];
+        int count = 0;
+        while (batch.hasNext()) {
+            int n = fill(block, batch);
+            if (count + n > results.length) {
+                results = Arrays.copyOf(results, 2 * results.length);
+            }
+            System.arraycopy(searchAll(block, 0, n), 0, results, count, n);
+            count += n;
+        }
+        return Arrays.copyOf(results, count);
+    }
+
+    /**
+     * Reads up to a block of keys from an iterator.
+     *
+     * @param block the array to read into
+     * @param keys  the iterator to read from
+     * @return the number of keys read
+     */
+    private static int fill(Object[] block, Iterator<?> keys) {
+        int n = 0;
+        while (n < block.length && keys.hasNext()) {
+            block[n++] = keys.next();
+        }
+        return n;
+    }
+
+    /**
+     * Computes the hash codes of a block of keys into batchHashes and reads the home slot of
+     * each in the current table. The reads do not depend on each other, so their cache misses
+     * overlap, and the probe walks that follow start from cached slots.
+     *
+     * @param batch the keys
+     * @param from  the index of the first key of the block
+     * @param n     the number of keys in the block, at most BATCH_SIZE
+     */
+    private void touchHomeSlots(Object[] batch, int from, int n) {
+        int sink = 0;
+        for (int i = 0; i < n; i++) {
+            int hash = hash(batch[from + i]);
+            batchHashes[i] = hash;
+            int home = positiveMod(h1(hash, capacity), capacity);
+            sink += hashes[home] + (keys[home] == null ? 0 : 1);
+        }
+        batchSink += sink;
+    }
+
+    /**
+     * Removes a key from the hash table.
+     *
+     * @param key the key to remove
+     * @return true if the key was in the table, false otherwise
+     */
+    public boolean remove(Object key) {
+        migrateSome();
+        int hash = hash(key);
+        if (filter != null && !filter.mightContain(hash)) {
+            return false;
+        }
+
+        // The key's bits stay set in the filter until it is next rebuilt
+        int pos = find(keys, hashes, probes, capacity, key, hash);
+        if (pos >= 0) {
+            removeAt(pos);
+            return true;
+        }
+        if (oldKeys != null) {
+            pos = find(oldKeys, oldHashes, oldProbes, oldCapacity, key, hash);
+            if (pos >= 0) {
+                // The migration skips tombstones, so the entry is simply never moved
+                oldKeys[pos] = TOMBSTONE;
+                totalProbe -= oldProbes[pos];
+                size--;
+                return true;
+            }
+        }
+        if (filter != null) {
+            filter.recordFalsePositive();
+        }
+        return false;
+    }
+
+    /**
+     * Removes the entry in the given slot of the current table, leaving a tombstone behind.
+     * Rebuilds the table in place if tombstones now take up too much of it, or outnumber
+     * the empty slots.
+     *
+     * @param pos the slot holding the entry to remove
+     */
+    protected void removeAt(int pos) {
+        keys[pos] = TOMBSTONE;
+        totalProbe -= probes[pos];
+        size--;
+        tombstones++;
+        if (tombstones > maxTombstoneRatio * capacity || tombstones > capacity - size - tombstones) {
+            compact();
+        }
+    }
+
+    /**
+     * Evicts one entry chosen by the CLOCK hand to make room for a new key. Every entry the
+     * hand passes with its referenced bit set has the bit cleared and is skipped, so the
+     * sweep ends at the first entry whose bit is clear, within one turn. Frequency counts
+     * are left as they are. Any resize in progress is completed first so the hand sees
+     * every entry.
+     */
+    private void evict() {
+        finishMigration();
+        while (true) {
+            int pos = cache.advance(capacity);
+            Object slotKey = keys[pos];
+            if (slotKey == null || slotKey == TOMBSTONE) {
+                continue;
+            }
+            if (cache.secondChance(hashes[pos])) {
+                continue;
+            }
+            removeAt(pos);
+            cache.evictions++;
+            return;
+        }
+    }
+
+    /**
+     * Walks the probe sequence of a key in the given table. The cached hash code of a slot
+     * is compared before its key, so equals is only called on likely matches. The number of
+     * slots examined is left in findProbes.
+     *
+     * @param k    the keys of the table to probe
+     * @param h    the cached hash codes of that table
+     * @param p    the probe counts of that table
+     * @param m    the capacity of that table
+     * @param key  the key to look for
+     * @param hash the hash code of the key
+     * @return the slot holding the key, or -1 if the key is not in the table
+     */
+    protected int find(Object[] k, int[] h, int[] p, int m, Object key, int hash) {
+        int pos = positiveMod(h1(hash, m), m);
+        int stepSize = positiveMod(h2(hash, m), m);
+
+        Object slotKey;
+        int probeCount = 0;
+        for (; probeCount < m && (slotKey = k[pos]) != null; probeCount++) {
+            if (h[pos] == hash && slotKey != TOMBSTONE && keysEqual(slotKey, key)) {
+                findProbes = probeCount + 1;
+                return pos;
+            }
+            pos = positiveMod(pos + stepSize, m);
+        }
+        findProbes = probeCount < m ? probeCount + 1 : m;  // Count the empty slot that ended the walk
+        return -1;
+    }
+
+    /**
+     * Compares a stored key to a key being looked up, which may be a KeyView.
+     *
+     * @param slotKey the stored key
+     * @param key     the key being looked up
+     * @return true if they stand for the same key
+     */
+    protected static boolean keysEqual(Object slotKey, Object key) {
+        return key instanceof KeyView view ? view.matches(slotKey) : slotKey.equals(key);
+    }
+
+    /**
+     * Places a key known to be absent into the first empty or tombstone slot of its probe
+     * sequence in the current table, recording the number of probes it took. The caller
+     * accounts for the entry in the table size.
+     *
+     * @param key       the key to place
+     * @param hash      the hash code of the key
+     * @param frequency the frequency count of the key
+     * @return the slot the key was placed in
+     */
+    protected int place(Object key, int hash, int frequency) {
+        int pos = positiveMod(h1(hash, capacity), capacity);
+        int stepSize = positiveMod(h2(hash, capacity), capacity);
+        int probeCount = 1; // There is a guaranteed probe
+
+        Object slotKey;
+        while ((slotKey = keys[pos]) != null && slotKey != TOMBSTONE) {
+            pos = positiveMod(pos + stepSize, capacity);
+            probeCount++;
+        }
+
+        if (slotKey == TOMBSTONE) {
+            tombstones--;
+        }
+        keys[pos] = key;
+        hashes[pos] = hash;
+        frequencies[pos] = frequency;
+        probes[pos] = probeCount;
+
+        totalProbe += probeCount;
+        return pos;
+    }
+
+    /**
+     * Starts a resize to the next twin prime capacity on the ladder of at least double the
+     * current one.
+     * Any resize still in progress is completed first, so at most two tables exist at once.
+     */
+    private void grow() {
+        finishMigration();
+
+        int newCapacity;
+        try {
+            newCapacity = nextCapacity(capacity);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Hashtable cannot grow past capacity " + capacity);
+        }
+
+        oldKeys = keys;
+        oldHashes = hashes;
+        oldFrequencies = frequencies;
+        oldProbes = probes;
+        oldCapacity = capacity;
+        migrationCursor = 0;
+
+        allocate(newCapacity);
+        capacity = newCapacity;
+        tombstones = 0;
+        if (filter != null) {
+            rebuildFilter();
+        }
+    }
+
+    /**
+     * Records the size and probe counts of the table the first time a key cannot be placed
+     * at the current capacity, so they can be reported for the load the table reached before
+     * it grew. Subclasses whose place grows the table when an entry does not fit call this
+     * first, while the size already counts the key being placed, which is left out. Later
+     * calls do nothing.
+     */
+    protected void recordOverflow() {
+        if (overflowSize < 0) {
+            overflowSize = size - 1;
+            overflowProbeCount = totalProbe;
+            overflowMaxProbes = getMaxProbeCount();
+        }
+    }
+
+    /**
+     * Get the number of keys the table held when a key first could not be placed and the
+     * table grew.
+     *
+     * @return the size at the overflow, or -1 if the table never overflowed
+     */
+    public int getOverflowSize() {
+        return overflowSize;
+    }
+
+    /**
+     * Get the total probe count of the table when it first overflowed.
+     *
+     * @return the probe count at the overflow, or 0 if the table never overflowed
+     */
+    public long getOverflowProbeCount() {
+        return overflowProbeCount;
+    }
+
+    /**
+     * Get the longest probe sequence in the table when it first overflowed.
+     *
+     * @return the maximum probe count at the overflow, or 0 if the table never overflowed
+     */
+    public int getOverflowMaxProbeCount() {
+        return overflowMaxProbes;
+    }
+
+    /**
+     * Picks the capacity a full table grows to, the twin prime at or above double the
+     * current capacity. Subclasses whose probing needs another kind of capacity override it.
+     *
+     * @param capacity the current capacity
+     * @return the new capacity
+     * @throws IllegalArgumentException if the table cannot grow any further
+     */
+    protected int nextCapacity(int capacity) {
+        return TwinPrimeGenerator.nextCapacity(2L * capacity);
+    }
+
+    /**
+     * Rebuilds the table in place at the same capacity, clearing every tombstone. Each live
+     * entry is moved to the first slot of its probe sequence that is empty or still holds an
+     * entry awaiting its own move, swapping with the latter, so no second set of arrays is
+     * needed. Probe counts are recomputed along the way.
+     */
+    protected void compact() {
+        finishMigration();
+
+        // Mark every live entry as pending and turn tombstones back into empty slots
+        long[] pending = new long[(capacity + 63) >>> 6];
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] == TOMBSTONE) {
+                keys[i] = null;
+            } else if (keys[i] != null) {
+                pending[i >>> 6] |= 1L << i;
+            }
+        }
+        tombstones = 0;
+        totalProbe = 0;
+
+        for (int i = 0; i < capacity; i++) {
+            if ((pending[i >>> 6] & (1L << i)) == 0) {
+                continue;
+            }
+            pending[i >>> 6] &= ~(1L << i);
+            Object key = keys[i];
+            int hash = hashes[i];
+            int frequency = frequencies[i];
+            keys[i] = null;
+
+            // Carry the entry along its probe sequence, displacing pending entries as needed
+            while (key != null) {
+                int pos = positiveMod(h1(hash, capacity), capacity);
+                int stepSize = positiveMod(h2(hash, capacity), capacity);
+                int probeCount = 1;
+                while (keys[pos] != null && (pending[pos >>> 6] & (1L << pos)) == 0) {
+                    pos = positiveMod(pos + stepSize, capacity);
+                    probeCount++;
+                }
+
+                Object displacedKey = keys[pos];
+                int displacedHash = hashes[pos];
+                int displacedFrequency = frequencies[pos];
+                pending[pos >>> 6] &= ~(1L << pos);
+
+                keys[pos] = key;
+                hashes[pos] = hash;
+                frequencies[pos] = frequency;
+                probes[pos] = probeCount;
+                totalProbe += probeCount;
+
+                key = displacedKey;
+                hash = displacedHash;
+                frequency = displacedFrequency;
+            }
+        }
+    }
+
+    /**
+     * Migrates the next few slots of the old table, if a resize is in progress.
+     */
+    protected void migrateSome() {
+        if (oldKeys != null) {
+            migrate(migrationStep);
+        }
+    }
+
+    /**
+     * Migrates every remaining slot of the old table, if a resize is in progress.
+     */
+    protected void finishMigration() {
+        if (oldKeys != null) {
+            migrate(oldCapacity - migrationCursor);
+        }
+    }
+
+    /**
+     * Moves up to the given number of old slots into the current table, reusing their
+     * cached hash codes. Migrated slots are marked rather than cleared so probe sequences
+     * through the old table stay intact.
+     *
+     * @param slots the number of old slots to migrate
+     */
+    private void migrate(int slots) {
+        int end = Math.min(oldCapacity, migrationCursor + slots);
+        for (; migrationCursor < end; migrationCursor++) {
+            Object key = oldKeys[migrationCursor];
+            if (key != null && key != TOMBSTONE) {
+                totalProbe -= oldProbes[migrationCursor];
+                place(key, oldHashes[migrationCursor], oldFrequencies[migrationCursor]);
+                oldKeys[migrationCursor] = TOMBSTONE;
+            }
+        }
+        if (migrationCursor == oldCapacity) {
+            oldKeys = null;
+            oldHashes = null;
+            oldFrequencies = null;
+            oldProbes = null;
+            oldCapacity = 0;
+        }
+    }
+
     /**
      * Get the current size of the hash table.
      *
@@ -107,10 +928,271 @@ public abstract class Hashtable {
      *
      * @return total probe count
      */
-    public int getProbeCount() {
+    public long getProbeCount() {
         return totalProbe;
     }
 
+    /**
+     * Starts or stops collecting the insert and search metrics reported by getStats.
+     * Starting again after stopping begins from zero.
+     *
+     * @param enabled whether to collect metrics
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (enabled != (metrics != null)) {
+            metrics = enabled ? new HashtableMetrics() : null;
+        }
+    }
+
+    /**
+     * Checks whether insert and search metrics are being collected.
+     *
+     * @return true if metrics are enabled, false otherwise
+     */
+    public boolean isMetricsEnabled() {
+        return metrics != null;
+    }
+
+    /**
+     * Bounds the table to a number of entries, evicting with the CLOCK policy once it is
+     * full, or removes the bound. A table already holding more entries is shrunk to the
+     * bound right away. Setting a bound starts the hit, miss and eviction counts from zero.
+     * The table still grows while the bound is above its maximum load, so for fixed memory
+     * the bound should fit in the initial capacity.
+     *
+     * @param maxSize the largest number of entries, or 0 to remove the bound
+     * @throws IllegalArgumentException if maxSize is negative
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative: " + maxSize);
+        }
+        cache = maxSize == 0 ? null : new ClockCache(maxSize);
+        while (cache != null && size > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Get the bound on the number of entries set by setMaxSize.
+     *
+     * @return the maximum size, or 0 if the table is unbounded
+     */
+    public int getMaxSize() {
+        return cache == null ? 0 : cache.maxSize;
+    }
+
+    /**
+     * Get the CLOCK state and the hit, miss and eviction counts of a bounded table.
+     *
+     * @return the cache state, or null if the table is unbounded
+     */
+    public ClockCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Starts or stops checking a Bloom filter of the keys before every search, remove and
+     * insert. Starting builds the filter from the keys already in the table.
+     *
+     * @param enabled whether to use a Bloom filter
+     */
+    public void setBloomFilterEnabled(boolean enabled) {
+        if (!enabled) {
+            filter = null;
+        } else if (filter == null) {
+            rebuildFilter();
+        }
+    }
+
+    /**
+     * Get the Bloom filter checked before probing, for its false-positive counts. A rebuild
+     * replaces it with a new filter whose counts start from zero.
+     *
+     * @return the Bloom filter, or null if it is disabled
+     */
+    public BloomFilter getBloomFilter() {
+        return filter;
+    }
+
+    /**
+     * Replaces the Bloom filter with one sized for the current capacity, holding the hash
+     * codes of every live key in the current table and any old one.
+     */
+    private void rebuildFilter() {
+        filter = new BloomFilter((int) Math.min(Integer.MAX_VALUE, FILTER_KEYS_PER_SLOT * capacity),
+                BloomFilter.DEFAULT_BITS_PER_KEY);
+        addToFilter(keys, hashes, capacity);
+        if (oldKeys != null) {
+            addToFilter(oldKeys, oldHashes, oldCapacity);
+        }
+    }
+
+    /**
+     * Adds the cached hash code of every live entry of a table to the Bloom filter.
+     *
+     * @param k the keys of the table
+     * @param h the cached hash codes of that table
+     * @param m the capacity of that table
+     */
+    private void addToFilter(Object[] k, int[] h, int m) {
+        for (int i = 0; i < m; i++) {
+            if (k[i] != null && k[i] != TOMBSTONE) {
+                filter.add(h[i]);
+            }
+        }
+    }
+
+    /**
+     * Get the live counters collected while metrics are enabled, for readers such as
+     * HashtableMonitor that read single counters without taking a snapshot.
+     *
+     * @return the counters, or null if metrics are disabled
+     */
+    HashtableMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Takes a snapshot of the table's metrics and scans the current table for clusters.
+     *
+     * @return the snapshot
+     */
+    public HashtableStats getStats() {
+        return new HashtableStats(size, capacity, totalProbe, metrics, keys);
+    }
+
+
+    /**
+     * Returns a spliterator over the entries of the table, in slot order. It splits by
+     * halving its slot range, so a parallel stream scans disjoint ranges of the table on
+     * each core. Any resize in progress is completed first, and the table must not be
+     * modified while the spliterator is in use.
+     *
+     * @return a spliterator over the entries, each a HashObject with the key, frequency
+     *         count and probe count of one slot
+     */
+    public Spliterator<HashObject> spliterator() {
+        finishMigration();
+        return new SlotSpliterator(keys, frequencies, probes, (double) size / capacity, 0, capacity);
+    }
+
+    /**
+     * Returns a sequential stream over the entries of the table, in slot order; call
+     * parallel() on it to scan the table on every core. Any resize in progress is
+     * completed first, and the table must not be modified while the stream is in use.
+     *
+     * @return a stream of the entries
+     */
+    public Stream<HashObject> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Finds the k entries with the highest frequency counts, keeping only the best k seen
+     * so far in a min-heap of slot indices while scanning, so the table is never sorted and
+     * only the k returned entries are allocated. Entries
+     * with equal frequency counts rank in slot order. Any resize in progress is completed
+     * first.
+     *
+     * @param k the number of entries to return
+     * @return an unmodifiable list of the entries with the k highest frequency counts,
+     *         highest first, or of every entry if the table holds fewer than k
+     */
+    public List<HashObject> topK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        finishMigration();
+        if (k == 0) {
+            return List.of();
+        }
+
+        // A binary min-heap of slots whose root is the weakest kept entry: lowest frequency,
+        // and latest slot among equals. Slots are kept as plain ints, so nothing is boxed.
+        int[] heap = new int[Math.min(k, size)];
+        int n = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] == null || keys[i] == TOMBSTONE) {
+                continue;
+            }
+            if (n < heap.length) {
+                heap[n] = i;
+                siftUp(heap, n++);
+            } else if (n > 0 && frequencies[i] > frequencies[heap[0]]) {
+                // Only a strictly higher count beats the root, since later slots lose ties
+                heap[0] = i;
+                siftDown(heap, n, 0);
+            }
+        }
+
+        HashObject[] top = new HashObject[n];
+        while (n > 0) {
+            int slot = heap[0];
+            heap[0] = heap[--n];
+            siftDown(heap, n, 0);
+            top[n] = new HashObject(keys[slot], frequencies[slot], probes[slot]);
+        }
+        return List.of(top);
+    }
+
+    /**
+     * Checks whether the entry in one slot ranks below the entry in another for topK: a
+     * lower frequency count, or a later slot among equal counts.
+     *
+     * @param a a slot of the current table
+     * @param b another slot of the current table
+     * @return true if slot a ranks below slot b
+     */
+    private boolean weaker(int a, int b) {
+        return frequencies[a] != frequencies[b] ? frequencies[a] < frequencies[b] : a > b;
+    }
+
+    /**
+     * Moves the slot at a heap index up the topK min-heap until its parent is weaker.
+     *
+     * @param heap the heap of slots
+     * @param i    the index of the slot to move
+     */
+    private void siftUp(int[] heap, int i) {
+        int slot = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!weaker(slot, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = slot;
+    }
+
+    /**
+     * Moves the slot at a heap index down the topK min-heap until both children are
+     * stronger.
+     *
+     * @param heap the heap of slots
+     * @param n    the number of slots in the heap
+     * @param i    the index of the slot to move
+     */
+    private void siftDown(int[] heap, int n, int i) {
+        int slot = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) {
+                break;
+            }
+            if (child + 1 < n && weaker(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!weaker(heap[child], slot)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = slot;
+    }
 
     /**
      * Get the capacity of the hash table.
@@ -121,6 +1203,87 @@ public abstract class Hashtable {
         return capacity;
     }
 
+    /**
+     * Get the load factor at which the table grows.
+     *
+     * @return the maximum load factor
+     */
+    public double getMaxLoadFactor() {
+        return maxLoadFactor;
+    }
+
+    /**
+     * Scans the table for the longest probe sequence any stored key needed.
+     *
+     * @return the maximum probe count, or 0 if the table is empty
+     */
+    public int getMaxProbeCount() {
+        int max = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] != null && keys[i] != TOMBSTONE) {
+                max = Math.max(max, probes[i]);
+            }
+        }
+        if (oldKeys != null) {
+            for (int i = 0; i < oldCapacity; i++) {
+                if (oldKeys[i] != null && oldKeys[i] != TOMBSTONE) {
+                    max = Math.max(max, oldProbes[i]);
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of tombstones left by removed keys in the current table
+     *
+     * @return the tombstone count
+     */
+    public int getTombstoneCount() {
+        return tombstones;
+    }
+
+    /**
+     * Get the fraction of the current table's slots that probe sequences must step over,
+     * counting both live entries and tombstones.
+     *
+     * @return the effective load factor
+     */
+    public double getEffectiveLoadFactor() {
+        return (double) (size + tombstones) / capacity;
+    }
+
+    /**
+     * Sets the fraction of the capacity tombstones may take before the table is rebuilt
+     * in place.
+     *
+     * @param maxTombstoneRatio the tombstone ratio that triggers a rebuild, in the range (0, 1]
+     */
+    public void setMaxTombstoneRatio(double maxTombstoneRatio) {
+        if (!(maxTombstoneRatio > 0 && maxTombstoneRatio <= 1)) {
+            throw new IllegalArgumentException("Max tombstone ratio must be in (0, 1]: " + maxTombstoneRatio);
+        }
+        this.maxTombstoneRatio = maxTombstoneRatio;
+    }
+
+    /**
+     * Get the fraction of the capacity tombstones may take before the table is rebuilt.
+     *
+     * @return the maximum tombstone ratio
+     */
+    public double getMaxTombstoneRatio() {
+        return maxTombstoneRatio;
+    }
+
+    /**
+     * Checks whether a resize is still migrating slots from the old table.
+     *
+     * @return true if a resize is in progress, false otherwise
+     */
+    public boolean isResizing() {
+        return oldKeys != null;
+    }
+
     /**
      * Computes the positive modulus of a dividend and divisor. This method
      * ensures that the result of the modulus operation is always non-negative,
@@ -138,19 +1301,53 @@ public abstract class Hashtable {
     }
 
     /**
-     * Dumps the hashtable to a file
+     * Called by HashtableSnapshot.restore once it has filled the slot arrays, size,
+     * tombstone count and total probe count of a new table, without going through insert.
+     * Subclasses keeping extra per-slot state rebuild it here from the slot arrays.
+     */
+    protected void restored() {
+    }
+
+    /**
+     * Saves the hashtable to a binary snapshot file that loadSnapshot can restore without
+     * rehashing. Any resize in progress is completed first.
+     *
+     * @param fileName the file to save to
+     * @throws IOException              if writing the file fails
+     * @throws IllegalArgumentException if a key is not a String, Integer, Long or Date
+     * @see HashtableSnapshot
+     */
+    public void saveSnapshot(String fileName) throws IOException {
+        HashtableSnapshot.save(this, fileName);
+    }
+
+    /**
+     * Restores a hashtable saved by saveSnapshot, with every entry in its original slot.
+     *
+     * @param fileName the snapshot file
+     * @return the restored table
+     * @throws IOException if reading the file fails or it is not a valid snapshot
+     */
+    public static Hashtable loadSnapshot(String fileName) throws IOException {
+        return HashtableSnapshot.restore(fileName);
+    }
+
+    /**
+     * Dumps the hashtable to a file, one "table[slot]: key frequency probes" line per
+     * entry, streamed through a DumpWriter. Any resize in progress is completed first.
      *
      * @param fileName the file to dump to
      */
     public void dumpToFile(String fileName) {
-        try (PrintWriter out = new PrintWriter(fileName)) {
+        finishMigration();
+        try (DumpWriter out = new DumpWriter(fileName)) {
             for (int i = 0; i < capacity; i++) {
-                if (table[i] != null) {
-                    out.println("table[" + i + "]: " + table[i].toString());
+                if (keys[i] != null && keys[i] != TOMBSTONE) {
+                    out.writeSlot(i, keys[i], frequencies[i], probes[i]);
                 }
             }
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             System.err.println("Error: Unable to write to file " + fileName);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,20 @@
-import java.io.File;
-import java.io.FileNotFoundException;
+import com.sun.management.ThreadMXBean;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 
 /**
- * Class to conduct experiments with open-addressing hash tables using linear probing
- * and double hashing. Ensures consistency in data for fair comparisons.
+ * Class to conduct experiments with open-addressing hash tables using linear probing,
+ * double hashing, Robin Hood hashing and the other strategies of TableType. Ensures consistency in data for fair comparisons.
  * <p>
  * Supports three data sources: random integers, dates, and words from a file.
  * Also implements three debug levels:
@@ -18,9 +28,30 @@ import java.util.*;
  * @author Kayden Humphries
  */
 public class HashtableExperiment {
+    // Fraction of the miss-heavy search phase's keys that are not in the table
+    private static final double MISS_FRACTION = 0.9;
+    // Timed rounds of the miss-heavy search phase per setting, the fastest of which is reported
+    private static final int SEARCH_ROUNDS = 3;
+    // Timed loads per thread count of the parallel load, the fastest of which is reported
+    private static final int PARALLEL_ROUNDS = 3;
+    // Most keys streamed through a table in cache mode, the length of the word list
+    private static final int CACHE_STREAM_KEYS = 400_000;
+    // Most keys counted in approximate mode, enough random numbers to outgrow any table
+    private static final int APPROXIMATE_STREAM_KEYS = 2_000_000;
+    // Counts the bytes allocated by the experiment's thread, for allocation per operation
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    // Reads the heap in use, for the footprint of a loaded table
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
     private final ExperimentArguments experimentArguments;
     private final int tableSize;
     private final int targetSize;
+    // Latencies of every insert of a load and every search of the latency phase, null
+    // unless timing each one. Allocated once and reset, so measuring never allocates.
+    private final LatencyHistogram insertLatency;
+    private final LatencyHistogram hitLatency;
+    private final LatencyHistogram missLatency;
+    private long insertAllocated;  // Bytes allocated by the timed inserts of the current load
 
     /**
      * Initializes the experiment, generating a twin prime table size and preloading data.
@@ -31,12 +62,33 @@ public class HashtableExperiment {
         this.experimentArguments = args;
         this.tableSize = TwinPrimeGenerator.generateTwinPrime(95500, 96000);
         this.targetSize = (int) Math.ceil(tableSize * experimentArguments.loadFactor);
+        this.insertLatency = args.latency ? new LatencyHistogram() : null;
+        this.hitLatency = args.latency ? new LatencyHistogram() : null;
+        this.missLatency = args.latency ? new LatencyHistogram() : null;
 
         printArgumentInfo();
 
         long currentTime = new Date().getTime();
-        runExperiment(new LinearProbing(tableSize), "Linear Probing", "linear-dump.txt", currentTime);
-        runExperiment(new DoubleHashing(tableSize), "Double Hashing", "double-dump.txt", currentTime);
+        HashFunction hashFunction = experimentArguments.hashFunctions.get(0);
+        for (TableType type : TableType.values()) {
+            if (type.hasIntTable() && !experimentArguments.needsObjectTable()) {
+                // Random integers go through the primitive tables to avoid boxing every key
+                runExperiment(type.createInt(tableSize), type.getLabel(), type.getDumpFile(), currentTime,
+                        type.getConcurrentTable());
+            } else {
+                runExperiment(type.create(tableSize, hashFunction), type.getLabel(), type.getDumpFile(), currentTime,
+                        type.getConcurrentTable());
+            }
+            if (experimentArguments.cache) {
+                runCacheExperiment(type.create(tableSize, hashFunction), currentTime);
+            }
+            if (experimentArguments.approximate) {
+                runApproximateExperiment(type, currentTime);
+            }
+            if (experimentArguments.offHeap && type.hasUtf8Table()) {
+                runOffHeapExperiment(type);
+            }
+        }
     }
 
     /**
@@ -47,39 +99,652 @@ public class HashtableExperiment {
         System.out.printf("HashtableExperiment: Input: %-11s Loadfactor: %.2f\n",
                 this.experimentArguments.dataSourceString,
                 this.experimentArguments.loadFactor);
+        if (this.experimentArguments.hashFunctions.get(0) != HashFunction.IDENTITY) {
+            System.out.println("HashtableExperiment: Hash function: " + this.experimentArguments.hashFunctions.get(0).getOptionName());
+        }
     }
 
     /**
      * Runs the experiment for a given hash table type and prints results.
      *
-     * @param table         The hash table instance (either LinearProbing or DoubleHashing)
-     * @param method        A string representing the hashing method used
-     * @param filename      The filename for dumping hash table data if debug level is 1
-     * @param currentTime   The current time to be used as a seed
+     * @param table           The hash table instance of one of the TableTypes
+     * @param method          A string representing the hashing method used
+     * @param filename        The filename for dumping hash table data if debug level is 1
+     * @param currentTime     The current time to be used as a seed
+     * @param concurrentTable Creates the matching concurrent table for the parallel load, or null if
+     *                        the strategy has no concurrent variant
+     */
+    private void runExperiment(Hashtable table, String method, String filename, long currentTime,
+                               IntFunction<ConcurrentHashtable> concurrentTable) {
+        System.out.println("\n\t\tUsing " + method);
+        if (experimentArguments.metrics) {
+            HashtableMonitor.register(table, method);
+        }
+        // Strategies that round the capacity, such as to a power of two, are filled to the same load factor
+        int target = targetSize;
+        if (table.getCapacity() != tableSize) {
+            target = (int) Math.ceil(table.getCapacity() * experimentArguments.loadFactor);
+            System.out.println("HashtableExperiment: Table capacity rounded to: " + table.getCapacity());
+        }
+        int capacity = table.getCapacity();
+        if (insertLatency != null) {
+            insertLatency.reset();
+            insertAllocated = 0;
+        }
+        int count = loadData(table, target, currentTime);
+        if (table.getCapacity() != capacity) {
+            // Strategies that cannot place every key at a high load, such as cuckoo hashing, grow
+            printOverflow(table, count, capacity);
+        } else {
+            printAnalytics(table.getProbeCount(), table.getMaxProbeCount(), table.getSize(), count);
+        }
+        if (experimentArguments.metrics) {
+            printStats(table.getStats());
+        }
+        if (experimentArguments.top > 0) {
+            printTopKeys(table.topK(experimentArguments.top));
+        }
+        if (table instanceof CuckooHashing cuckoo) {
+            System.out.printf("\t\t%d displacements, %d rehashes, %d keys in the stash\n",
+                    cuckoo.getDisplacementCount(), cuckoo.getRehashCount(), cuckoo.getStashSize());
+        }
+        if (table instanceof HopscotchHashing hopscotch) {
+            System.out.printf("\t\t%d moves, %d rebuilds\n", hopscotch.getMoveCount(), hopscotch.getRebuildCount());
+        }
+        if (experimentArguments.bloom) {
+            runMissHeavySearches(table, currentTime);
+        }
+        if (insertLatency != null) {
+            printLatency("Insert", insertLatency, insertAllocated);
+            runLatencySearches(table, currentTime);
+        }
+
+        if (experimentArguments.debugLevel == 1) {
+            table.dumpToFile(filename);
+            System.out.println("HashtableExperiment: Saved dump of hash table to " + filename);
+        }
+
+        if (experimentArguments.threads > 0 && concurrentTable != null) {
+            runParallelExperiment(concurrentTable, table.getHashFunction(), count, table.getSize(), currentTime);
+        }
+    }
+
+    /**
+     * Runs the experiment for a given primitive int hash table and prints results.
+     *
+     * @param table           The primitive int hash table instance of one of the TableTypes
+     * @param method          A string representing the hashing method used
+     * @param filename        The filename for dumping hash table data if debug level is 1
+     * @param currentTime     The current time to be used as a seed
+     * @param concurrentTable Creates the matching concurrent table for the parallel load
      */
-    private void runExperiment(Hashtable table, String method, String filename, long currentTime) {
+    private void runExperiment(IntHashtable table, String method, String filename, long currentTime,
+                               IntFunction<ConcurrentHashtable> concurrentTable) {
         System.out.println("\n\t\tUsing " + method);
-        int count = loadData(table, targetSize, currentTime);
+        int count = loadRandomIntegers(table, targetSize, currentTime);
 
-        printAnalytics(table, count);
+        printAnalytics(table.getProbeCount(), table.getMaxProbeCount(), table.getSize(), count);
 
         if (experimentArguments.debugLevel == 1) {
             table.dumpToFile(filename);
             System.out.println("HashtableExperiment: Saved dump of hash table to " + filename);
         }
+
+        if (experimentArguments.threads > 0 && concurrentTable != null) {
+            runParallelExperiment(concurrentTable, HashFunction.IDENTITY, count, table.getSize(), currentTime);
+        }
+    }
+
+    /**
+     * Reloads the same input into concurrent tables with 1, 2, 4, ... up to the configured
+     * number of threads, printing the throughput of each run and checking that the final size
+     * and frequency total match the single-threaded run. An untimed load warms the insert path
+     * up first, and each thread count takes the fastest of PARALLEL_ROUNDS loads, so the
+     * 1-thread baseline does not pay for JIT compilation.
+     *
+     * @param concurrentTable Creates an empty concurrent table of the given capacity
+     * @param hashFunction    The hash function of the single-threaded table
+     * @param count           Total number of insertions of the single-threaded run
+     * @param expectedSize    Final size of the single-threaded table
+     * @param currentTime     The current time to be used as a seed
+     */
+    private void runParallelExperiment(IntFunction<ConcurrentHashtable> concurrentTable, HashFunction hashFunction,
+                                       int count, int expectedSize, long currentTime) {
+        Object[] keys = generateKeys(count, currentTime);
+        ConcurrentHashtable warmup = concurrentTable.apply(tableSize);
+        warmup.setHashFunction(hashFunction);
+        loadParallel(warmup, keys, 1);
+        double baseline = 0;
+
+        for (int threads = 1; ; threads = Math.min(threads * 2, experimentArguments.threads)) {
+            ConcurrentHashtable table = null;
+            long elapsed = Long.MAX_VALUE;
+            for (int round = 0; round < PARALLEL_ROUNDS; round++) {
+                table = concurrentTable.apply(tableSize);
+                table.setHashFunction(hashFunction);
+                elapsed = Math.min(elapsed, loadParallel(table, keys, threads));
+            }
+
+            double throughput = keys.length / (elapsed / 1_000_000.0);
+            if (threads == 1) {
+                baseline = throughput;
+            }
+            boolean matches = table.getSize() == expectedSize && table.getTotalFrequency() == count;
+            System.out.printf("\t\tParallel load with %d thread(s): %.0f inserts/ms, %.2fx speedup, %s\n",
+                    threads, throughput, throughput / baseline,
+                    matches ? "matches single-threaded run" : "MISMATCH: size " + table.getSize()
+                            + ", frequency total " + table.getTotalFrequency());
+
+            if (threads == experimentArguments.threads) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Splits the keys into one contiguous chunk per thread and inserts every chunk concurrently.
+     *
+     * @param table   The concurrent hash table to insert into
+     * @param keys    The keys to insert
+     * @param threads The number of inserting threads
+     * @return The wall-clock time of the load in nanoseconds
+     */
+    private long loadParallel(ConcurrentHashtable table, Object[] keys, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> chunks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int from = (int) ((long) keys.length * t / threads);
+                int to = (int) ((long) keys.length * (t + 1) / threads);
+                chunks.add(() -> {
+                    for (int i = from; i < to; i++) {
+                        table.insert(keys[i]);
+                    }
+                    return null;
+                });
+            }
+
+            long start = System.nanoTime();
+            for (Future<Void> chunk : pool.invokeAll(chunks)) {
+                chunk.get();
+            }
+            return System.nanoTime() - start;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Parallel load was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Parallel load failed.", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Generates the first count keys of the configured data source, in the same order the
+     * single-threaded loaders insert them.
+     *
+     * @param count       The number of keys to generate
+     * @param currentTime The current time to be used as a seed
+     * @return The generated keys
+     */
+    private Object[] generateKeys(int count, long currentTime) {
+        Object[] keys = new Object[count];
+        try (DataSource source = new DataSource(experimentArguments.dataSource, currentTime)) {
+            for (int i = 0; i < count; i++) {
+                keys[i] = source.next();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error: unable to read word-list.txt.", e);
+        }
+        return keys;
     }
 
     /**
      * Prints analytics of the hash table experiment, including insert count and probe count.
      *
-     * @param table The hash table used in the experiment
-     * @param count Total number of insertions attempted
+     * @param probeCount The total probe count of the hash table
+     * @param maxProbes  The longest probe sequence of any element in the hash table
+     * @param size       The number of distinct elements in the hash table
+     * @param count      Total number of insertions attempted
      */
-    private void printAnalytics(Hashtable table, int count) {
-        System.out.printf("HashtableExperiment: size of hash table is: %d\n", targetSize);
-        int duplicates = count - targetSize; // Keeping this as per user preference
+    private void printAnalytics(long probeCount, int maxProbes, int size, int count) {
+        System.out.printf("HashtableExperiment: size of hash table is: %d\n", size);
+        int duplicates = count - size; // Keeping this as per user preference
         System.out.printf("\t\tInserted %d elements, of which %d were duplicates\n", count, duplicates);
-        System.out.printf("\t\tAvg. no. of probes = %.2f\n", (double) table.getProbeCount() / table.getSize());
+        System.out.printf("\t\tAvg. no. of probes = %.2f\n", (double) probeCount / size);
+        System.out.printf("\t\tMax. no. of probes = %d\n", maxProbes);
+    }
+
+    /**
+     * Prints the outcome of a load that overflowed the table, which grew to fit the keys. The
+     * probe counts of the grown table are those of a lower load factor than the other
+     * strategies were filled to, so those printed are the ones the table had when it first
+     * could not place a key, at the highest load its original capacity held.
+     *
+     * @param table       The loaded hash table
+     * @param count       Total number of insertions attempted
+     * @param capacity    The capacity of the table before the load
+     */
+    private void printOverflow(Hashtable table, int count, int capacity) {
+        int size = table.getSize();
+        System.out.printf("HashtableExperiment: size of hash table is: %d\n", size);
+        System.out.printf("\t\tInserted %d elements, of which %d were duplicates\n", count, count - size);
+        System.out.printf("\t\tOVERFLOWED at load factor %.2f: grew from %d to %d slots (load %.2f)\n",
+                experimentArguments.loadFactor, capacity, table.getCapacity(), (double) size / table.getCapacity());
+        int overflowSize = table.getOverflowSize();
+        if (overflowSize > 0) {
+            // Probe counts of the table up to the key it could not place
+            System.out.printf("\t\tAvg. no. of probes = %.2f at overflow (%d keys, load %.2f)\n",
+                    (double) table.getOverflowProbeCount() / overflowSize, overflowSize, (double) overflowSize / capacity);
+            System.out.printf("\t\tMax. no. of probes = %d at overflow\n", table.getOverflowMaxProbeCount());
+        }
+    }
+
+    /**
+     * Prints the detailed metrics of a table, collected while metrics are enabled.
+     *
+     * @param stats A snapshot of the table's metrics
+     */
+    private void printStats(HashtableStats stats) {
+        System.out.printf("\t\tDuplicate-hit rate = %.2f\n", stats.getDuplicateHitRate());
+        System.out.printf("\t\tInsert probes (count:inserts) = %s\n",
+                HashtableStats.formatHistogram(stats.getInsertProbeHistogram()));
+        System.out.printf("\t\tClusters = %d, avg. length = %.2f, max. length = %d\n",
+                stats.getClusterCount(), stats.getAverageClusterLength(), stats.getMaxClusterLength());
+        System.out.printf("\t\tCluster lengths (length:clusters) = %s\n",
+                HashtableStats.formatHistogram(stats.getClusterLengthHistogram()));
+    }
+
+    /**
+     * Prints the most frequent keys of a table with their frequency counts.
+     *
+     * @param top The entries with the highest frequency counts, highest first
+     */
+    private void printTopKeys(List<HashObject> top) {
+        System.out.printf("\t\tTop %d keys (key:frequency) =", top.size());
+        for (HashObject entry : top) {
+            System.out.print(" " + entry.getKey() + ":" + entry.getFrequencyCount());
+        }
+        System.out.println();
+    }
+
+    /**
+     * Times searching a loaded table for keys that are mostly absent, first walking the
+     * probe sequence of every miss and then with a Bloom filter ruling misses out, and
+     * prints the time per search of each along with the filter's false-positive rate.
+     * Both settings search the same shuffled keys, and each takes the fastest of
+     * SEARCH_ROUNDS rounds after an untimed one. The filter is disabled again afterwards.
+     *
+     * @param table The loaded hash table
+     * @param seed  The seed to pick and shuffle the keys with
+     */
+    private void runMissHeavySearches(Hashtable table, long seed) {
+        Object[] present = table.stream().map(HashObject::getKey).toArray();
+        Random random = new Random(seed);
+        Object[] queries = new Object[2 * present.length];
+        for (int i = 0; i < queries.length; i++) {
+            Object key = present[random.nextInt(present.length)];
+            queries[i] = random.nextDouble() < MISS_FRACTION ? absentKey(table, key, random) : key;
+        }
+
+        long withoutFilter = timeSearches(table, queries);
+        table.setBloomFilterEnabled(true);
+        long withFilter = timeSearches(table, queries);
+        BloomFilter filter = table.getBloomFilter();
+        table.setBloomFilterEnabled(false);
+
+        double nanosWithout = (double) withoutFilter / queries.length;
+        double nanosWith = (double) withFilter / queries.length;
+        System.out.printf("\t\tMiss-heavy search (%.0f%% absent, %d keys): %.1f ns/search without Bloom filter, "
+                        + "%.1f ns/search with it, %.2fx faster\n",
+                100 * MISS_FRACTION, queries.length, nanosWithout, nanosWith, nanosWithout / nanosWith);
+        System.out.printf("\t\tBloom filter: %d bits, k = %d, false-positive rate = %.2f%% measured, %.2f%% expected\n",
+                filter.getBitCount(), filter.getHashCount(), 100 * filter.getFalsePositiveRate(),
+                100 * filter.getExpectedFalsePositiveRate());
+    }
+
+    /**
+     * Searches a loaded table once for each of its keys and once for as many absent keys,
+     * in shuffled order, timing every search on its own, and prints the latency
+     * percentiles and allocation per search of the hits and of the misses. Both sets are
+     * searched once untimed first.
+     *
+     * @param table The loaded hash table
+     * @param seed  The seed to shuffle and derive the keys with
+     */
+    private void runLatencySearches(Hashtable table, long seed) {
+        Object[] hits = table.stream().map(HashObject::getKey).toArray();
+        Random random = new Random(seed);
+        Collections.shuffle(Arrays.asList(hits), random);
+        Object[] misses = new Object[hits.length];
+        for (int i = 0; i < misses.length; i++) {
+            misses[i] = absentKey(table, hits[i], random);
+        }
+
+        timeEachSearch(table, hits, hitLatency);
+        timeEachSearch(table, misses, missLatency);
+        printLatency("Search hit", hitLatency, timeEachSearch(table, hits, hitLatency));
+        printLatency("Search miss", missLatency, timeEachSearch(table, misses, missLatency));
+    }
+
+    /**
+     * Times every search of a set of keys on its own.
+     *
+     * @param table   The hash table to search
+     * @param queries The keys to search for
+     * @param latency The histogram to record the search times in, reset first
+     * @return The bytes allocated by the searches
+     */
+    private static long timeEachSearch(Hashtable table, Object[] queries, LatencyHistogram latency) {
+        latency.reset();
+        long allocated = allocatedBytes();
+        for (Object key : queries) {
+            long start = System.nanoTime();
+            table.search(key);
+            latency.record(System.nanoTime() - start);
+        }
+        return allocatedBytes() - allocated;
+    }
+
+    /**
+     * Inserts a block of keys one at a time, timing every insert on its own.
+     *
+     * @param table the table to insert into
+     * @param batch the keys to be inserted
+     * @param n     the number of keys at the start of batch to insert
+     */
+    private void timeInserts(Hashtable table, Object[] batch, int n) {
+        long allocated = allocatedBytes();
+        for (int i = 0; i < n; i++) {
+            long start = System.nanoTime();
+            table.insert(batch[i]);
+            insertLatency.record(System.nanoTime() - start);
+        }
+        insertAllocated += allocatedBytes() - allocated;
+    }
+
+    /**
+     * Gets the number of bytes the current thread has allocated so far.
+     *
+     * @return The allocated bytes, or 0 if the JVM does not count them
+     */
+    private static long allocatedBytes() {
+        return THREADS.isThreadAllocatedMemorySupported() ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * Prints the p50, p90, p99, p99.9 and max of a set of latencies along with the bytes
+     * allocated per operation.
+     *
+     * @param operation The operation timed, for the label
+     * @param latency   The recorded latencies
+     * @param allocated The bytes allocated by all of the operations
+     */
+    private static void printLatency(String operation, LatencyHistogram latency, long allocated) {
+        long count = latency.getCount();
+        if (count == 0) {
+            return;
+        }
+        System.out.printf("\t\t%s latency (%d ops): p50 = %d ns, p90 = %d ns, p99 = %d ns, p99.9 = %d ns, "
+                        + "max = %d ns, %.1f bytes/op\n",
+                operation, count, latency.getPercentile(0.50), latency.getPercentile(0.90),
+                latency.getPercentile(0.99), latency.getPercentile(0.999), latency.getMax(),
+                (double) allocated / count);
+    }
+
+    /**
+     * Streams up to CACHE_STREAM_KEYS keys of the data source, the whole word list for the
+     * word source, through an empty table bounded to the target size, and prints the hit
+     * ratio, evictions and time per insert of the CLOCK policy next to the hit ratio of an
+     * unbounded table. The keys are read before the timed loop.
+     *
+     * @param table       An empty hash table of the strategy
+     * @param currentTime The current time to be used as a seed
+     */
+    private void runCacheExperiment(Hashtable table, long currentTime) {
+        List<Object> stream = readStream(CACHE_STREAM_KEYS, currentTime);
+        int maxSize = Math.max(1, (int) Math.ceil(table.getCapacity() * experimentArguments.loadFactor));
+        table.setMaxSize(maxSize);
+        long start = System.nanoTime();
+        for (Object key : stream) {
+            table.insert(key);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Every repeat is a hit in a table large enough to never evict
+        int distinct = new HashSet<>(stream).size();
+        ClockCache cache = table.getCache();
+        System.out.printf("\t\tCLOCK cache of %d entries: %d inserts, hit ratio = %.2f%% (%.2f%% unbounded), "
+                        + "%d evictions, %.1f ns/insert\n",
+                maxSize, stream.size(), 100 * cache.getHitRatio(), 100.0 * (stream.size() - distinct) / stream.size(),
+                cache.getEvictionCount(), (double) elapsed / stream.size());
+    }
+
+    /**
+     * Counts up to APPROXIMATE_STREAM_KEYS keys of the data source, the whole word list for
+     * the word source, both exactly in a growing table and with an ApproximateCounter that
+     * tracks the target size of keys in its table, then prints the time per key and memory of
+     * each and how far the estimates of every distinct key are from the exact counts. The
+     * keys are read before the timed loops.
+     *
+     * @param type        The table strategy of both counts
+     * @param currentTime The current time to be used as a seed
+     */
+    private void runApproximateExperiment(TableType type, long currentTime) {
+        List<Object> stream = readStream(APPROXIMATE_STREAM_KEYS, currentTime);
+
+        // Grown at the same load factor the counter's table is kept under
+        Hashtable exact = type.create(tableSize, 0.75, experimentArguments.hashFunctions.get(0));
+        long start = System.nanoTime();
+        for (Object key : stream) {
+            exact.insert(key);
+        }
+        long exactNanos = System.nanoTime() - start;
+
+        int maxTracked = Math.max(1, (int) Math.ceil(tableSize * experimentArguments.loadFactor));
+        ApproximateCounter counter = new ApproximateCounter(maxTracked, type);
+        start = System.nanoTime();
+        for (Object key : stream) {
+            counter.add(key);
+        }
+        long approximateNanos = System.nanoTime() - start;
+
+        long errorBound = counter.getErrorBound();
+        long totalError = 0;
+        long maxError = 0;
+        int withinBound = 0;
+        int exactEstimates = 0;
+        Iterator<HashObject> entries = exact.stream().iterator();
+        while (entries.hasNext()) {
+            HashObject entry = entries.next();
+            long error = counter.estimateFrequency(entry.getKey()).getEstimate() - entry.getFrequencyCount();
+            if (error < 0) {
+                throw new IllegalStateException("Estimate below the true count for " + entry.getKey());
+            }
+            totalError += error;
+            maxError = Math.max(maxError, error);
+            withinBound += error <= errorBound ? 1 : 0;
+            exactEstimates += error == 0 ? 1 : 0;
+        }
+        Set<Object> topKeys = new HashSet<>();
+        exact.topK(10).forEach(entry -> topKeys.add(entry.getKey()));
+        long topFound = counter.topK(10).stream().filter(entry -> topKeys.contains(entry.getKey())).count();
+
+        CountMinSketch sketch = counter.getSketch();
+        int distinct = exact.getSize();
+        System.out.printf("\t\tExact count: %d keys, %d distinct, table grew to %d slots, %.1f ns/key\n",
+                stream.size(), distinct, exact.getCapacity(), (double) exactNanos / stream.size());
+        System.out.printf("\t\tApproximate count: %d tracked keys in %d slots + %d x %d sketch (%d KB), "
+                        + "%.1f ns/key, %d promotions\n",
+                maxTracked, counter.getTable().getCapacity(), sketch.getDepth(), sketch.getWidth(),
+                sketch.getMemoryBytes() / 1024, (double) approximateNanos / stream.size(), counter.getPromotionCount());
+        System.out.printf("\t\t  Error bound = %d (%.0f%% confidence), avg. error = %.3f, max. error = %d, "
+                        + "%.2f%% within bound, %.2f%% exact, top 10 found %d/%d\n",
+                errorBound, 100 * (1 - sketch.getDelta()), (double) totalError / distinct, maxError,
+                100.0 * withinBound / distinct, 100.0 * exactEstimates / distinct, topFound, topKeys.size());
+    }
+
+    /**
+     * Loads the word list into a fresh Object-keyed table and a fresh off-heap String table
+     * of a strategy in turn, printing for each the heap it keeps live, the collections
+     * during its load and the pause of a full collection with it loaded, then checks that
+     * both tables hold the same keys with the same counts in the same slots.
+     *
+     * @param type The table strategy, which must have an off-heap String variant
+     */
+    private void runOffHeapExperiment(TableType type) {
+        long heapBefore = settledHeapUsed();
+        long collectionsBefore = collectionCount();
+        long collectionMillisBefore = collectionMillis();
+        Hashtable onHeap = type.create(tableSize);
+        loadWordList(onHeap, targetSize);
+        printFootprint("On-heap", onHeap.getSize(), heapBefore, 0, collectionsBefore, collectionMillisBefore);
+
+        heapBefore = settledHeapUsed();
+        collectionsBefore = collectionCount();
+        collectionMillisBefore = collectionMillis();
+        Utf8Hashtable offHeap = type.createUtf8(tableSize);
+        loadWordList(offHeap, targetSize);
+        printFootprint("Off-heap", offHeap.getSize(), heapBefore, offHeap.getArenaCapacity(), collectionsBefore,
+                collectionMillisBefore);
+
+        int mismatches = 0;
+        for (int i = 0; i < tableSize; i++) {
+            Object key = onHeap.keys[i];
+            if (!Objects.equals(key, offHeap.getKey(i))
+                    || (key != null && onHeap.frequencies[i] != offHeap.frequencies[i])) {
+                mismatches++;
+            }
+        }
+        System.out.printf("\t\tOff-heap table %s\n", mismatches == 0 && onHeap.getProbeCount() == offHeap.getProbeCount()
+                ? "matches on-heap table" : "MISMATCH: " + mismatches + " slots differ");
+    }
+
+    /**
+     * Prints the heap a loaded table keeps live beyond what was in use before it was
+     * created, and the garbage collection time of its load and of a full collection.
+     *
+     * @param name                   The name of the table
+     * @param size                   The number of keys in the table
+     * @param heapBefore             The settled heap in use before the table was created
+     * @param offHeapBytes           The bytes the table holds outside the heap
+     * @param collectionsBefore      The collection count before the table was created
+     * @param collectionMillisBefore The collection time before the table was created
+     */
+    private static void printFootprint(String name, int size, long heapBefore, long offHeapBytes,
+                                       long collectionsBefore, long collectionMillisBefore) {
+        long collections = collectionCount() - collectionsBefore;
+        long collectionMillis = collectionMillis() - collectionMillisBefore;
+        long start = System.nanoTime();
+        long heap = settledHeapUsed() - heapBefore;
+        long fullCollectionNanos = System.nanoTime() - start;
+        System.out.printf("\t\t%s keys: %.1f heap bytes/key, %.1f off-heap bytes/key, %d collections "
+                        + "taking %d ms during the load, full collection %.2f ms\n",
+                name, (double) heap / size, (double) offHeapBytes / size, collections, collectionMillis,
+                fullCollectionNanos / 1_000_000.0);
+    }
+
+    /**
+     * Runs a full garbage collection and reads the heap left in use.
+     *
+     * @return The bytes of heap in use
+     */
+    private static long settledHeapUsed() {
+        System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Sums the collections of every garbage collector so far.
+     *
+     * @return The number of collections
+     */
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Sums the collection time of every garbage collector so far.
+     *
+     * @return The collection time in milliseconds
+     */
+    private static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Reads up to a number of keys of the configured data source, stopping early at the end
+     * of the word list.
+     *
+     * @param limit       The most keys to read
+     * @param currentTime The current time to be used as a seed
+     * @return The keys
+     */
+    private List<Object> readStream(int limit, long currentTime) {
+        List<Object> stream = new ArrayList<>();
+        try (DataSource source = new DataSource(experimentArguments.dataSource, currentTime)) {
+            Object key;
+            while (stream.size() < limit && (key = source.next()) != null) {
+                stream.add(key);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error: unable to read word-list.txt.", e);
+        }
+        return stream;
+    }
+
+    /**
+     * Derives a key of the same type as a present key that is not in the table.
+     *
+     * @param table  The hash table
+     * @param key    A key in the table
+     * @param random The random number generator to perturb keys with
+     * @return A key the table does not hold
+     */
+    private static Object absentKey(Hashtable table, Object key, Random random) {
+        Object candidate;
+        int attempt = 0;
+        do {
+            attempt++;
+            if (key instanceof Integer) {
+                candidate = random.nextInt();
+            } else if (key instanceof Date date) {
+                candidate = new Date(date.getTime() + 500 + attempt);
+            } else {
+                candidate = key + "~" + attempt;
+            }
+        } while (table.search(candidate) != null);
+        return candidate;
+    }
+
+    /**
+     * Searches for every key once untimed, then SEARCH_ROUNDS more times.
+     *
+     * @param table   The hash table to search
+     * @param queries The keys to search for
+     * @return The fastest round in nanoseconds
+     */
+    private static long timeSearches(Hashtable table, Object[] queries) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round <= SEARCH_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (Object key : queries) {
+                table.search(key);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round > 0) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        return best;
     }
 
     /**
@@ -109,11 +774,47 @@ public class HashtableExperiment {
      */
     private int loadRandomIntegers(Hashtable table, int targetSize, long seed) {
         Random rand = new Random(seed);
+        Object[] batch = new Object[Hashtable.BATCH_SIZE];
+        int count = 0;
+        int n;
+        while ((n = Math.min(batch.length, targetSize - table.getSize())) > 0) {
+            for (int i = 0; i < n; i++) {
+                batch[i] = rand.nextInt();
+            }
+            insertAll(table, batch, n);
+            count += n;
+        }
+        return count;
+    }
+
+    /**
+     * Inserts random integers into the primitive hash table without boxing. Uses the same
+     * sequence as the Object-keyed variant for a given seed.
+     *
+     * @param table      The hash table to insert into
+     * @param targetSize The number of elements to insert
+     * @param seed       The seed to generate random numbers
+     * @return The total number of insertions attempted
+     */
+    private int loadRandomIntegers(IntHashtable table, int targetSize, long seed) {
+        Random rand = new Random(seed);
+        int[] batch = new int[Hashtable.BATCH_SIZE];
         int count = 0;
-        while (table.getSize() < targetSize) {
-            int key = rand.nextInt();
-            insert(table, key);
-            count++;
+        int n;
+        while ((n = Math.min(batch.length, targetSize - table.getSize())) > 0) {
+            for (int i = 0; i < n; i++) {
+                batch[i] = rand.nextInt();
+            }
+            if (this.experimentArguments.debugLevel == 2) {
+                for (int i = 0; i < n; i++) {
+                    int size = table.getSize();
+                    int pos = table.insert(batch[i]);
+                    printInsert(batch[i], pos, size == table.getSize());
+                }
+            } else {
+                table.insertAll(batch, 0, n);
+            }
+            count += n;
         }
         return count;
     }
@@ -127,42 +828,109 @@ public class HashtableExperiment {
      * @return The total number of insertions attempted
      */
     private int loadDates(Hashtable table, int targetSize, long currentTime) {
+        Object[] batch = new Object[Hashtable.BATCH_SIZE];
         int count = 0;
-        Date date = new Date(currentTime);
-        while (table.getSize() < targetSize) {
-            insert(table, date);
-            currentTime += 1000;
-            date = new Date(currentTime);
-            count++;
+        int n;
+        while ((n = Math.min(batch.length, targetSize - table.getSize())) > 0) {
+            for (int i = 0; i < n; i++) {
+                batch[i] = new Date(currentTime);
+                currentTime += 1000;
+            }
+            insertAll(table, batch, n);
+            count += n;
         }
         return count;
     }
 
     /**
-     * Reads words from "word-list.txt" and inserts them into the hash table.
+     * Reads words from "word-list.txt" and inserts them into the hash table. The file is
+     * memory-mapped and each line is inserted as a view of its bytes, so a String is only
+     * created for words not already in the table.
      *
      * @param table      The hash table to insert words into
      * @param targetSize The number of words to insert
      * @return The total number of insertions attempted
      */
     private int loadWordList(Hashtable table, int targetSize) {
-        Scanner scanner;
-        try {
-            scanner = new Scanner(new File("word-list.txt"));
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException("Error: word-list.txt not found.");
+        Utf8Slice[] batch = new Utf8Slice[Hashtable.BATCH_SIZE];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Utf8Slice();
+        }
+        int count = 0;
+        try (MappedLineReader reader = DataSource.openWordList()) {
+            int n;
+            while ((n = Math.min(batch.length, targetSize - table.getSize())) > 0) {
+                int read = 0;
+                while (read < n && reader.nextLine(batch[read]) != null) {
+                    read++;
+                }
+                insertAll(table, batch, read);
+                count += read;
+                if (read < n) {
+                    break;  // End of the word list
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error: unable to read word-list.txt.", e);
         }
+        return count;
+    }
 
+    /**
+     * Reads words from "word-list.txt" and inserts them into the off-heap String table
+     * straight from the mapped file, so no String is created for any word.
+     *
+     * @param table      The hash table to insert words into
+     * @param targetSize The number of words to insert
+     * @return The total number of insertions attempted
+     */
+    private int loadWordList(Utf8Hashtable table, int targetSize) {
+        Utf8Slice[] batch = new Utf8Slice[Hashtable.BATCH_SIZE];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Utf8Slice();
+        }
         int count = 0;
-        while (scanner.hasNextLine() && table.getSize() < targetSize) {
-            String word = scanner.nextLine();
-            insert(table, word);
-            count++;
+        try (MappedLineReader reader = DataSource.openWordList()) {
+            int n;
+            while ((n = Math.min(batch.length, targetSize - table.getSize())) > 0) {
+                int read = 0;
+                while (read < n && reader.nextLine(batch[read]) != null) {
+                    read++;
+                }
+                table.insertAll(batch, 0, read);
+                count += read;
+                if (read < n) {
+                    break;  // End of the word list
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error: unable to read word-list.txt.", e);
         }
-        scanner.close();
         return count;
     }
 
+    /**
+     * Inserts a block of keys into the provided hashtable through its batch path, or one at a
+     * time when every insert is printed or timed. Blocks never hold more keys than the table still
+     * needs to reach its target size, so the loaders stop at exactly the same key as they
+     * would inserting one key at a time.
+     *
+     * @param table the table to insert into
+     * @param batch the keys to be inserted
+     * @param n     the number of keys at the start of batch to insert
+     */
+    private void insertAll(Hashtable table, Object[] batch, int n) {
+        if (this.experimentArguments.debugLevel == 2) {
+            for (int i = 0; i < n; i++) {
+                insert(table, batch[i]);
+            }
+        } else if (insertLatency != null) {
+            timeInserts(table, batch, n);
+        } else {
+            table.insertAll(batch, 0, n);
+        }
+    }
+
     /**
      * Inserts given key into provided hashtable and outputs debug information if requested
      *
@@ -175,12 +943,57 @@ public class HashtableExperiment {
 
         if (this.experimentArguments.debugLevel == 2) {
             boolean duplicate = size == table.getSize(); // If the table size stays the same, the item was a duplicate
+            printInsert(key, pos, duplicate);
+        }
+    }
 
-            if (duplicate) {
-                System.out.printf("Found duplicate element \"%s\" at position %d\n", key.toString(), pos);
-            } else {
-                System.out.printf("Inserted \"%s\" at position %d\n", key.toString(), pos);
+    /**
+     * Prints the debug line for a single insert
+     *
+     * @param key       the key that was inserted
+     * @param pos       the position the key ended up in
+     * @param duplicate whether the key was already in the table
+     */
+    private void printInsert(Object key, int pos, boolean duplicate) {
+        if (duplicate) {
+            System.out.printf("Found duplicate element \"%s\" at position %d\n", key.toString(), pos);
+        } else {
+            System.out.printf("Inserted \"%s\" at position %d\n", key.toString(), pos);
+        }
+    }
+
+    /**
+     * Counts the words of the pipeline files with sharded tables, then prints the report of
+     * every stage and, if asked for, the most frequent words.
+     *
+     * @param arguments Command-line arguments with the pipeline files and settings
+     */
+    private static void runPipeline(ExperimentArguments arguments) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int readers = arguments.readers > 0 ? arguments.readers
+                : Math.min(arguments.pipelineFiles.size(), processors);
+        int shards = arguments.shards > 0 ? arguments.shards : processors;
+        WordCountPipeline pipeline = new WordCountPipeline(arguments.pipelineFiles, readers, shards,
+                arguments.queueCapacity, arguments.sweepStrategies.get(0), arguments.hashFunctions.get(0));
+
+        ShardedCounts counts;
+        try {
+            counts = pipeline.run();
+        } catch (IOException e) {
+            throw new RuntimeException("Error: unable to read the pipeline files.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Pipeline was interrupted.", e);
+        }
+        pipeline.printReport(counts);
+
+        if (arguments.top > 0) {
+            List<HashObject> top = counts.topK(arguments.top);
+            System.out.printf("\t\tTop %d words (word:frequency) =", top.size());
+            for (HashObject entry : top) {
+                System.out.print(" " + entry.getKey() + ":" + entry.getFrequencyCount());
             }
+            System.out.println();
         }
     }
 
@@ -193,6 +1006,12 @@ public class HashtableExperiment {
         ExperimentArguments arguments = ExperimentArguments.loadArguments(args);
         if (arguments == null) return;
 
-        new HashtableExperiment(arguments);
+        if (arguments.sweepFile != null) {
+            new ExperimentSweep(arguments).run();
+        } else if (arguments.pipelineFiles != null) {
+            runPipeline(arguments);
+        } else {
+            new HashtableExperiment(arguments);
+        }
     }
 }
\ No newline at end of file
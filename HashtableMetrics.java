@@ -0,0 +1,94 @@
+/**
+ * HashtableMetrics.java
+ *
+ * Counters a Hashtable updates on every insert and search while metrics are enabled: probe
+ * count histograms of new inserts, search hits and search misses, the longest insert probe
+ * sequence, and the number of inserts that found their key already present.
+ * <p>
+ * Histograms count probe counts below 16 exactly and larger ones in power-of-two buckets,
+ * so every int fits in {@value #BUCKETS} buckets. The counters are plain fields written by
+ * the thread using the table; other threads, such as a JMX client, may read slightly stale
+ * values.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class HashtableMetrics {
+
+    /** Number of buckets in a probe count histogram */
+    public static final int BUCKETS = 43;
+
+    // Probe counts below this each get their own bucket
+    private static final int EXACT = 16;
+
+    final long[] insertProbes = new long[BUCKETS];
+    final long[] searchHitProbes = new long[BUCKETS];
+    final long[] searchMissProbes = new long[BUCKETS];
+    long inserts;
+    long searchHits;
+    long searchMisses;
+    long insertProbeTotal;
+    long searchHitProbeTotal;
+    long searchMissProbeTotal;
+    long duplicates;
+    int maxInsertProbes;
+
+    /**
+     * Records an insert that placed a new key.
+     *
+     * @param probeCount the probe count the key was placed with
+     */
+    void recordInsert(int probeCount) {
+        insertProbes[bucket(probeCount)]++;
+        inserts++;
+        insertProbeTotal += probeCount;
+        if (probeCount > maxInsertProbes) {
+            maxInsertProbes = probeCount;
+        }
+    }
+
+    /**
+     * Records an insert whose key was already in the table.
+     */
+    void recordDuplicate() {
+        duplicates++;
+    }
+
+    /**
+     * Records a search.
+     *
+     * @param probeCount the number of slots the search examined
+     * @param hit        whether the key was found
+     */
+    void recordSearch(int probeCount, boolean hit) {
+        if (hit) {
+            searchHitProbes[bucket(probeCount)]++;
+            searchHits++;
+            searchHitProbeTotal += probeCount;
+        } else {
+            searchMissProbes[bucket(probeCount)]++;
+            searchMisses++;
+            searchMissProbeTotal += probeCount;
+        }
+    }
+
+    /**
+     * Finds the histogram bucket of a count.
+     *
+     * @param count a non-negative count
+     * @return the index of the bucket holding it
+     */
+    public static int bucket(int count) {
+        return count < EXACT ? count : (EXACT - 4) + (31 - Integer.numberOfLeadingZeros(count));
+    }
+
+    /**
+     * Returns the smallest count held by a histogram bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the lower bound of the bucket
+     */
+    public static int bucketLowerBound(int bucket) {
+        return bucket < EXACT ? bucket : 1 << (bucket - (EXACT - 4));
+    }
+}
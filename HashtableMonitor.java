@@ -0,0 +1,293 @@
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * HashtableMonitor.java
+ *
+ * JMX MBean publishing the metrics of one Hashtable, so a tool such as JConsole can watch
+ * probe counts and clustering while an experiment runs. The size and probe attributes read
+ * the table's counters directly, so they may be slightly stale while the table is in use;
+ * histograms are published as formatted strings.
+ * <p>
+ * The cluster attributes need a scan of every slot, so they share one snapshot taken at
+ * most once per CLUSTER_REFRESH_NANOS, and a client refreshing all of them scans the table
+ * once.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class HashtableMonitor implements HashtableMonitorMBean {
+
+    // Age after which the cluster attributes scan the table again
+    private static final long CLUSTER_REFRESH_NANOS = 1_000_000_000L;
+    // Stands in for the counters of a table with metrics disabled, which are all zero
+    private static final HashtableMetrics NO_METRICS = new HashtableMetrics();
+
+    private final Hashtable table;
+    private HashtableStats clusters;  // Snapshot the cluster attributes are read from
+    private long clustersTaken;  // System.nanoTime when clusters was taken
+
+    /**
+     * Creates a monitor for the given table.
+     *
+     * @param table the table to publish metrics of
+     */
+    public HashtableMonitor(Hashtable table) {
+        this.table = table;
+    }
+
+    /**
+     * Enables metrics on a table and registers a monitor for it with the platform MBean server
+     * under "Hashtable:type=&lt;class name&gt;,name=&lt;name&gt;".
+     *
+     * @param table the table to monitor
+     * @param name  a name telling the table apart from others of the same class
+     * @return the name the monitor was registered under
+     */
+    public static ObjectName register(Hashtable table, String name) {
+        table.setMetricsEnabled(true);
+        try {
+            ObjectName objectName = new ObjectName("Hashtable:type=" + table.getClass().getSimpleName()
+                    + ",name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new HashtableMonitor(table), objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register MBean for " + name, e);
+        }
+    }
+
+    /**
+     * Unregisters a monitor registered by register.
+     *
+     * @param objectName the name the monitor was registered under
+     */
+    public static void unregister(ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to unregister MBean " + objectName, e);
+        }
+    }
+
+    /**
+     * Get the size of the table, read from its counter.
+     *
+     * @return the number of keys in the table
+     */
+    @Override
+    public int getSize() {
+        return table.getSize();
+    }
+
+    /**
+     * Get the capacity of the table, read from its counter.
+     *
+     * @return the number of slots in the table
+     */
+    @Override
+    public int getCapacity() {
+        return table.getCapacity();
+    }
+
+    /**
+     * Get the size of the table over its capacity.
+     *
+     * @return the load factor of the table
+     */
+    @Override
+    public double getLoadFactor() {
+        return (double) table.getSize() / table.getCapacity();
+    }
+
+    /**
+     * Get the total probe count of the table over its size.
+     *
+     * @return the average number of probes per key, or 0 if the table is empty
+     */
+    @Override
+    public double getAverageProbes() {
+        int size = table.getSize();
+        return size == 0 ? 0 : (double) table.getProbeCount() / size;
+    }
+
+    /**
+     * Get the insert count of the table's metrics.
+     *
+     * @return the number of new keys inserted, or 0 if metrics are disabled
+     */
+    @Override
+    public long getInserts() {
+        return metrics().inserts;
+    }
+
+    /**
+     * Get the duplicates of the table's metrics over all its insertions.
+     *
+     * @return the duplicate hit rate, or 0 if nothing was inserted
+     */
+    @Override
+    public double getDuplicateHitRate() {
+        HashtableMetrics metrics = metrics();
+        long total = metrics.inserts + metrics.duplicates;
+        return total == 0 ? 0 : (double) metrics.duplicates / total;
+    }
+
+    /**
+     * Get the insert probe total of the table's metrics over its inserts.
+     *
+     * @return the average number of probes per insert, or 0 if nothing was inserted
+     */
+    @Override
+    public double getAverageInsertProbes() {
+        HashtableMetrics metrics = metrics();
+        return metrics.inserts == 0 ? 0 : (double) metrics.insertProbeTotal / metrics.inserts;
+    }
+
+    /**
+     * Get the longest insert probe sequence of the table's metrics.
+     *
+     * @return the maximum number of probes of an insert, or 0 if metrics are disabled
+     */
+    @Override
+    public int getMaxInsertProbes() {
+        return metrics().maxInsertProbes;
+    }
+
+    /**
+     * Get the insert probe histogram of the table's metrics, formatted.
+     *
+     * @return the histogram as "lowerBound:count" pairs
+     */
+    @Override
+    public String getInsertProbeHistogram() {
+        return HashtableStats.formatHistogram(metrics().insertProbes);
+    }
+
+    /**
+     * Get the search hit count of the table's metrics.
+     *
+     * @return the number of search hits, or 0 if metrics are disabled
+     */
+    @Override
+    public long getSearchHits() {
+        return metrics().searchHits;
+    }
+
+    /**
+     * Get the search miss count of the table's metrics.
+     *
+     * @return the number of search misses, or 0 if metrics are disabled
+     */
+    @Override
+    public long getSearchMisses() {
+        return metrics().searchMisses;
+    }
+
+    /**
+     * Get the search hit probe total of the table's metrics over its hits.
+     *
+     * @return the average number of probes per search hit, or 0 if there were none
+     */
+    @Override
+    public double getAverageSearchHitProbes() {
+        HashtableMetrics metrics = metrics();
+        return metrics.searchHits == 0 ? 0 : (double) metrics.searchHitProbeTotal / metrics.searchHits;
+    }
+
+    /**
+     * Get the search miss probe total of the table's metrics over its misses.
+     *
+     * @return the average number of probes per search miss, or 0 if there were none
+     */
+    @Override
+    public double getAverageSearchMissProbes() {
+        HashtableMetrics metrics = metrics();
+        return metrics.searchMisses == 0 ? 0 : (double) metrics.searchMissProbeTotal / metrics.searchMisses;
+    }
+
+    /**
+     * Get the search hit probe histogram of the table's metrics, formatted.
+     *
+     * @return the histogram as "lowerBound:count" pairs
+     */
+    @Override
+    public String getSearchHitProbeHistogram() {
+        return HashtableStats.formatHistogram(metrics().searchHitProbes);
+    }
+
+    /**
+     * Get the search miss probe histogram of the table's metrics, formatted.
+     *
+     * @return the histogram as "lowerBound:count" pairs
+     */
+    @Override
+    public String getSearchMissProbeHistogram() {
+        return HashtableStats.formatHistogram(metrics().searchMissProbes);
+    }
+
+    /**
+     * Get the cluster count of the latest cluster snapshot.
+     *
+     * @return the number of clusters
+     */
+    @Override
+    public int getClusterCount() {
+        return clusters().getClusterCount();
+    }
+
+    /**
+     * Get the longest cluster of the latest cluster snapshot.
+     *
+     * @return the maximum cluster length
+     */
+    @Override
+    public int getMaxClusterLength() {
+        return clusters().getMaxClusterLength();
+    }
+
+    /**
+     * Get the average cluster length of the latest cluster snapshot.
+     *
+     * @return the average cluster length, or 0 if the table is empty
+     */
+    @Override
+    public double getAverageClusterLength() {
+        return clusters().getAverageClusterLength();
+    }
+
+    /**
+     * Get the cluster length histogram of the latest cluster snapshot, formatted.
+     *
+     * @return the histogram as "lowerBound:count" pairs
+     */
+    @Override
+    public String getClusterLengthHistogram() {
+        return HashtableStats.formatHistogram(clusters().getClusterLengthHistogram());
+    }
+
+    /**
+     * Get the table's live counters.
+     *
+     * @return the counters, or all zero counters if metrics are disabled
+     */
+    private HashtableMetrics metrics() {
+        HashtableMetrics metrics = table.getMetrics();
+        return metrics != null ? metrics : NO_METRICS;
+    }
+
+    /**
+     * Get the snapshot the cluster attributes are read from, scanning the table again if
+     * the last snapshot is older than CLUSTER_REFRESH_NANOS.
+     *
+     * @return the snapshot
+     */
+    private synchronized HashtableStats clusters() {
+        long now = System.nanoTime();
+        if (clusters == null || now - clustersTaken > CLUSTER_REFRESH_NANOS) {
+            clusters = table.getStats();
+            clustersTaken = now;
+        }
+        return clusters;
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * HashtableMonitorMBean.java
+ *
+ * JMX management interface of a HashtableMonitor, exposing the live metrics of one
+ * Hashtable. See HashtableStats for the meaning of each attribute.
+ *
+ * @author Kayden Humphries
+ */
+public interface HashtableMonitorMBean {
+
+    /**
+     * Get the number of keys in the table.
+     *
+     * @return the size of the table
+     */
+    int getSize();
+
+    /**
+     * Get the number of slots in the table.
+     *
+     * @return the capacity of the table
+     */
+    int getCapacity();
+
+    /**
+     * Get the fraction of slots holding a key.
+     *
+     * @return the load factor of the table
+     */
+    double getLoadFactor();
+
+    /**
+     * Get the average probe count of the keys in the table.
+     *
+     * @return the average number of probes per key
+     */
+    double getAverageProbes();
+
+    /**
+     * Get the number of keys inserted since metrics were enabled.
+     *
+     * @return the number of new keys inserted
+     */
+    long getInserts();
+
+    /**
+     * Get the fraction of insertions that found their key already in the table.
+     *
+     * @return the duplicate hit rate
+     */
+    double getDuplicateHitRate();
+
+    /**
+     * Get the average probe count of the inserts of new keys.
+     *
+     * @return the average number of probes per insert
+     */
+    double getAverageInsertProbes();
+
+    /**
+     * Get the longest probe sequence of any insert.
+     *
+     * @return the maximum number of probes of an insert
+     */
+    int getMaxInsertProbes();
+
+    /**
+     * Get the histogram of insert probe counts.
+     *
+     * @return the histogram as "lowerBound:count" pairs
+     */
+    String getInsertProbeHistogram();
+
+    /**
+     * Get the number of searches that found their key.
+     *
+     * @return the number of search hits
+     */
+    long getSearchHits();
+
+    /**
+     * Get the number of searches that did not find their key.
+     *
+     * @return the number of search misses
+     */
+    long getSearchMisses();
+
+    /**
+     * Get the average probe count of the searches that found their key.
+     *
+     * @return the average number of probes per search hit
+     */
+    double getAverageSearchHitProbes();
+
+    /**
+     * Get the average probe count of the searches that did not find their key.
+     *
+     * @return the average number of probes per search miss
+     */
+    double getAverageSearchMissProbes();
+
+    /**
+     * Get the histogram of search hit probe counts.
+     *
+     * @return the histogram as "lowerBound:count" pairs
+     */
+    String getSearchHitProbeHistogram();
+
+    /**
+     * Get the histogram of search miss probe counts.
+     *
+     * @return the histogram as "lowerBound:count" pairs
+     */
+    String getSearchMissProbeHistogram();
+
+    /**
+     * Get the number of runs of adjacent occupied slots.
+     *
+     * @return the number of clusters
+     */
+    int getClusterCount();
+
+    /**
+     * Get the length of the longest run of adjacent occupied slots.
+     *
+     * @return the maximum cluster length
+     */
+    int getMaxClusterLength();
+
+    /**
+     * Get the average length of a run of adjacent occupied slots.
+     *
+     * @return the average cluster length
+     */
+    double getAverageClusterLength();
+
+    /**
+     * Get the histogram of cluster lengths.
+     *
+     * @return the histogram as "lowerBound:count" pairs
+     */
+    String getClusterLengthHistogram();
+}
@@ -0,0 +1,298 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Date;
+
+/**
+ * HashtableSnapshot.java
+ *
+ * Saves a Hashtable to a compact binary file and restores it, slot for slot, without
+ * rehashing a single key. A restored table has the same class, capacity, load factor,
+ * hash function and probe counts as the saved one, so it dumps identically and keeps
+ * probing exactly as the original would have.
+ * <p>
+ * The file holds a header followed by one record per occupied or tombstoned slot, in slot
+ * order, all written big-endian through a DataOutputStream:
+ * </p>
+ * <pre>
+ *   int     magic "HTS1"
+ *   string  table class name
+ *   string  hash function option name
+ *   double  max load factor
+ *   double  max tombstone ratio
+ *   int     capacity
+ *   int     size
+ *   int     tombstones
+ *   long    total probe count
+ *   records size + tombstones times:
+ *     int   slot
+ *     byte  key type: 0 tombstone, 1 String, 2 Integer, 3 Long, 4 Date
+ *     for a key:
+ *       int      cached hash code
+ *       int      frequency count
+ *       int      probe count
+ *       key      String as an int length and UTF-8 bytes, Integer as an int,
+ *                Long as a long, Date as a long of epoch milliseconds
+ * </pre>
+ * <p>
+ * Strings are stored as length-prefixed UTF-8 rather than writeUTF, so keys of any length
+ * fit. Restoring recreates the table through its (int capacity, double maxLoadFactor)
+ * constructor, which every strategy has, so it uses the default migration step.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class HashtableSnapshot {
+
+    // "HTS1", identifying the file and its format version
+    private static final int MAGIC = 0x48545331;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final byte TOMBSTONE_KEY = 0;
+    private static final byte STRING_KEY = 1;
+    private static final byte INTEGER_KEY = 2;
+    private static final byte LONG_KEY = 3;
+    private static final byte DATE_KEY = 4;
+
+    private HashtableSnapshot() {
+    }
+
+    /**
+     * Saves a table to a snapshot file, replacing any existing file. Any resize in progress
+     * is completed first.
+     *
+     * @param table    the table to save
+     * @param fileName the file to save to
+     * @throws IOException              if writing the file fails
+     * @throws IllegalArgumentException if a key is not a String, Integer, Long or Date
+     */
+    public static void save(Hashtable table, String fileName) throws IOException {
+        table.finishMigration();
+        Object[] keys = table.keys;
+        int tombstones = checkKeys(keys);
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(Paths.get(fileName)), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            writeString(out, table.getClass().getName());
+            writeString(out, table.getHashFunction().getOptionName());
+            out.writeDouble(table.getMaxLoadFactor());
+            out.writeDouble(table.getMaxTombstoneRatio());
+            out.writeInt(table.capacity);
+            out.writeInt(table.size);
+            out.writeInt(tombstones);
+            out.writeLong(table.totalProbe);
+
+            for (int i = 0; i < keys.length; i++) {
+                Object key = keys[i];
+                if (key == null) {
+                    continue;
+                }
+                out.writeInt(i);
+                if (key == Hashtable.TOMBSTONE) {
+                    out.writeByte(TOMBSTONE_KEY);
+                    continue;
+                }
+                out.writeByte(keyType(key));
+                out.writeInt(table.hashes[i]);
+                out.writeInt(table.frequencies[i]);
+                out.writeInt(table.probes[i]);
+                writeKey(out, key);
+            }
+        }
+    }
+
+    /**
+     * Restores a table from a snapshot file. Every entry is put back in the slot it was
+     * saved from, with its cached hash code, frequency count and probe count.
+     *
+     * @param fileName the snapshot file
+     * @return the restored table
+     * @throws IOException if reading the file fails or it is not a valid snapshot
+     */
+    public static Hashtable restore(String fileName) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(Paths.get(fileName)), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a hashtable snapshot: " + fileName);
+            }
+            String className = readString(in);
+            String hashName = readString(in);
+            double maxLoadFactor = in.readDouble();
+            double maxTombstoneRatio = in.readDouble();
+            int capacity = in.readInt();
+            int size = in.readInt();
+            int tombstones = in.readInt();
+            long totalProbe = in.readLong();
+
+            HashFunction hashFunction = HashFunction.fromOptionName(hashName);
+            if (hashFunction == null) {
+                throw new IOException("Unknown hash function in snapshot: " + hashName);
+            }
+            if (size < 0 || tombstones < 0 || (long) size + tombstones > capacity) {
+                throw new IOException("Corrupt snapshot header: " + fileName);
+            }
+            Hashtable table = newTable(className, capacity, maxLoadFactor);
+            table.setHashFunction(hashFunction);
+            table.setMaxTombstoneRatio(maxTombstoneRatio);
+
+            for (int n = size + tombstones; n > 0; n--) {
+                int slot = in.readInt();
+                if (slot < 0 || slot >= capacity || table.keys[slot] != null) {
+                    throw new IOException("Corrupt snapshot record for slot " + slot + ": " + fileName);
+                }
+                byte type = in.readByte();
+                if (type == TOMBSTONE_KEY) {
+                    table.keys[slot] = Hashtable.TOMBSTONE;
+                    continue;
+                }
+                table.hashes[slot] = in.readInt();
+                table.frequencies[slot] = in.readInt();
+                table.probes[slot] = in.readInt();
+                table.keys[slot] = readKey(in, type);
+            }
+
+            table.size = size;
+            table.tombstones = tombstones;
+            table.totalProbe = totalProbe;
+            table.restored();
+            return table;
+        }
+    }
+
+    /**
+     * Creates an empty table of the class named in a snapshot.
+     *
+     * @param className     the name of the table class
+     * @param capacity      the capacity of the table
+     * @param maxLoadFactor the load factor that triggers growth
+     * @return the new table
+     * @throws IOException if the class is not a Hashtable that can be created
+     */
+    private static Hashtable newTable(String className, int capacity, double maxLoadFactor) throws IOException {
+        try {
+            Class<? extends Hashtable> type = Class.forName(className).asSubclass(Hashtable.class);
+            return type.getConstructor(int.class, double.class).newInstance(capacity, maxLoadFactor);
+        } catch (ReflectiveOperationException | ClassCastException | IllegalArgumentException e) {
+            throw new IOException("Cannot recreate a " + className + " of capacity " + capacity, e);
+        }
+    }
+
+    /**
+     * Checks that every key of a table can be saved, before the file is created, and
+     * counts its tombstones.
+     *
+     * @param keys the keys of the table
+     * @return the number of tombstones
+     * @throws IllegalArgumentException if a key's class cannot be saved
+     */
+    private static int checkKeys(Object[] keys) {
+        int count = 0;
+        for (Object key : keys) {
+            if (key == Hashtable.TOMBSTONE) {
+                count++;
+            } else if (key != null) {
+                keyType(key);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the record type of a key.
+     *
+     * @param key the key
+     * @return the key type byte
+     * @throws IllegalArgumentException if the key's class cannot be saved
+     */
+    private static byte keyType(Object key) {
+        if (key instanceof String) {
+            return STRING_KEY;
+        } else if (key instanceof Integer) {
+            return INTEGER_KEY;
+        } else if (key instanceof Long) {
+            return LONG_KEY;
+        } else if (key instanceof Date) {
+            return DATE_KEY;
+        }
+        throw new IllegalArgumentException("Cannot save a key of " + key.getClass().getName());
+    }
+
+    /**
+     * Writes a key's value.
+     *
+     * @param out the stream to write to
+     * @param key the key, of a class keyType accepts
+     * @throws IOException if writing fails
+     */
+    private static void writeKey(DataOutputStream out, Object key) throws IOException {
+        if (key instanceof String string) {
+            writeString(out, string);
+        } else if (key instanceof Integer integer) {
+            out.writeInt(integer);
+        } else if (key instanceof Long value) {
+            out.writeLong(value);
+        } else {
+            out.writeLong(((Date) key).getTime());
+        }
+    }
+
+    /**
+     * Reads a key's value.
+     *
+     * @param in   the stream to read from
+     * @param type the key type byte
+     * @return the key
+     * @throws IOException if reading fails or the type is unknown
+     */
+    private static Object readKey(DataInputStream in, byte type) throws IOException {
+        switch (type) {
+            case STRING_KEY:
+                return readString(in);
+            case INTEGER_KEY:
+                return in.readInt();
+            case LONG_KEY:
+                return in.readLong();
+            case DATE_KEY:
+                return new Date(in.readLong());
+            default:
+                throw new IOException("Unknown key type in snapshot: " + type);
+        }
+    }
+
+    /**
+     * Writes a string as its UTF-8 length and bytes.
+     *
+     * @param out    the stream to write to
+     * @param string the string
+     * @throws IOException if writing fails
+     */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by writeString.
+     *
+     * @param in the stream to read from
+     * @return the string
+     * @throws IOException if reading fails or the length is negative
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt string length in snapshot: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
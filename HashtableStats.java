@@ -0,0 +1,310 @@
+/**
+ * HashtableStats.java
+ *
+ * An immutable snapshot of a Hashtable's metrics: probe count histograms of inserts, search
+ * hits and search misses, the duplicate-hit rate, and the distribution of cluster lengths,
+ * where a cluster is a maximal run of adjacent occupied or tombstone slots in the current
+ * table. Long clusters are the sign of primary clustering under linear probing.
+ * <p>
+ * Histograms are indexed by HashtableMetrics.bucket; HashtableMetrics.bucketLowerBound
+ * gives the smallest count each bucket holds. The insert and search counters are only
+ * filled in while metrics are enabled on the table, whereas the cluster lengths are always
+ * measured from the table itself when the snapshot is taken.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class HashtableStats {
+
+    private final int size;
+    private final int capacity;
+    private final long probeCount;
+    private final long[] insertProbes;
+    private final long[] searchHitProbes;
+    private final long[] searchMissProbes;
+    private final long insertProbeTotal;
+    private final long searchHitProbeTotal;
+    private final long searchMissProbeTotal;
+    private final long duplicates;
+    private final int maxInsertProbes;
+    private final long[] clusterLengths;
+    private final int clusterCount;
+    private final int maxClusterLength;
+    private final int clusteredSlots;
+
+    /**
+     * Takes a snapshot of a table's counters and scans its current slots for clusters.
+     *
+     * @param size       the number of keys in the table
+     * @param capacity   the capacity of the current table
+     * @param probeCount the total probe count of the table
+     * @param metrics    the table's counters, or null if metrics are disabled
+     * @param keys       the slots of the current table, null where empty
+     */
+    HashtableStats(int size, int capacity, long probeCount, HashtableMetrics metrics, Object[] keys) {
+        this.size = size;
+        this.capacity = capacity;
+        this.probeCount = probeCount;
+        if (metrics != null) {
+            this.insertProbes = metrics.insertProbes.clone();
+            this.searchHitProbes = metrics.searchHitProbes.clone();
+            this.searchMissProbes = metrics.searchMissProbes.clone();
+            this.insertProbeTotal = metrics.insertProbeTotal;
+            this.searchHitProbeTotal = metrics.searchHitProbeTotal;
+            this.searchMissProbeTotal = metrics.searchMissProbeTotal;
+            this.duplicates = metrics.duplicates;
+            this.maxInsertProbes = metrics.maxInsertProbes;
+        } else {
+            this.insertProbes = new long[HashtableMetrics.BUCKETS];
+            this.searchHitProbes = new long[HashtableMetrics.BUCKETS];
+            this.searchMissProbes = new long[HashtableMetrics.BUCKETS];
+            this.insertProbeTotal = 0;
+            this.searchHitProbeTotal = 0;
+            this.searchMissProbeTotal = 0;
+            this.duplicates = 0;
+            this.maxInsertProbes = 0;
+        }
+
+        // Start right after an empty slot so a cluster wrapping past the end is counted once
+        this.clusterLengths = new long[HashtableMetrics.BUCKETS];
+        int start = 0;
+        while (start < keys.length && keys[start] != null) {
+            start++;
+        }
+        int clusters = 0;
+        int maxCluster = 0;
+        int clustered = 0;
+        if (start == keys.length) {
+            clusters = 1;
+            maxCluster = keys.length;
+            clustered = keys.length;
+            clusterLengths[HashtableMetrics.bucket(keys.length)]++;
+        } else {
+            int run = 0;
+            for (int i = 1; i <= keys.length; i++) {
+                if (keys[(start + i) % keys.length] != null) {
+                    run++;
+                } else if (run > 0) {
+                    clusters++;
+                    maxCluster = Math.max(maxCluster, run);
+                    clustered += run;
+                    clusterLengths[HashtableMetrics.bucket(run)]++;
+                    run = 0;
+                }
+            }
+        }
+        this.clusterCount = clusters;
+        this.maxClusterLength = maxCluster;
+        this.clusteredSlots = clustered;
+    }
+
+    /**
+     * Get the number of keys in the table.
+     *
+     * @return the table size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the capacity of the current table.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the probe count of every key in the table, summed.
+     *
+     * @return the total probe count
+     */
+    public long getProbeCount() {
+        return probeCount;
+    }
+
+    /**
+     * Get the histogram of the probe counts new keys were placed with.
+     *
+     * @return the number of inserts per bucket
+     */
+    public long[] getInsertProbeHistogram() {
+        return insertProbes.clone();
+    }
+
+    /**
+     * Get the histogram of the slots examined by searches that found their key.
+     *
+     * @return the number of search hits per bucket
+     */
+    public long[] getSearchHitProbeHistogram() {
+        return searchHitProbes.clone();
+    }
+
+    /**
+     * Get the histogram of the slots examined by searches that did not find their key.
+     *
+     * @return the number of search misses per bucket
+     */
+    public long[] getSearchMissProbeHistogram() {
+        return searchMissProbes.clone();
+    }
+
+    /**
+     * Get the number of inserts that placed a new key.
+     *
+     * @return the new key count
+     */
+    public long getInserts() {
+        return sum(insertProbes);
+    }
+
+    /**
+     * Get the number of inserts that found their key already in the table.
+     *
+     * @return the duplicate count
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Get the fraction of inserts that found their key already in the table.
+     *
+     * @return the duplicate-hit rate, or 0 if nothing was inserted
+     */
+    public double getDuplicateHitRate() {
+        long total = getInserts() + duplicates;
+        return total == 0 ? 0 : (double) duplicates / total;
+    }
+
+    /**
+     * Get the average probe count new keys were placed with.
+     *
+     * @return the average insert probe count, or 0 if nothing was inserted
+     */
+    public double getAverageInsertProbes() {
+        long inserts = getInserts();
+        return inserts == 0 ? 0 : (double) insertProbeTotal / inserts;
+    }
+
+    /**
+     * Get the longest probe sequence any insert needed to place a new key.
+     *
+     * @return the maximum insert probe count
+     */
+    public int getMaxInsertProbes() {
+        return maxInsertProbes;
+    }
+
+    /**
+     * Get the number of searches that found their key.
+     *
+     * @return the search hit count
+     */
+    public long getSearchHits() {
+        return sum(searchHitProbes);
+    }
+
+    /**
+     * Get the number of searches that did not find their key.
+     *
+     * @return the search miss count
+     */
+    public long getSearchMisses() {
+        return sum(searchMissProbes);
+    }
+
+    /**
+     * Get the average number of slots examined by searches that found their key.
+     *
+     * @return the average search hit probe count, or 0 if there were no hits
+     */
+    public double getAverageSearchHitProbes() {
+        long hits = getSearchHits();
+        return hits == 0 ? 0 : (double) searchHitProbeTotal / hits;
+    }
+
+    /**
+     * Get the average number of slots examined by searches that did not find their key.
+     *
+     * @return the average search miss probe count, or 0 if there were no misses
+     */
+    public double getAverageSearchMissProbes() {
+        long misses = getSearchMisses();
+        return misses == 0 ? 0 : (double) searchMissProbeTotal / misses;
+    }
+
+    /**
+     * Get the histogram of cluster lengths in the current table.
+     *
+     * @return the number of clusters per bucket
+     */
+    public long[] getClusterLengthHistogram() {
+        return clusterLengths.clone();
+    }
+
+    /**
+     * Get the number of clusters in the current table.
+     *
+     * @return the cluster count
+     */
+    public int getClusterCount() {
+        return clusterCount;
+    }
+
+    /**
+     * Get the length of the longest cluster in the current table.
+     *
+     * @return the maximum cluster length
+     */
+    public int getMaxClusterLength() {
+        return maxClusterLength;
+    }
+
+    /**
+     * Get the average length of the clusters in the current table.
+     *
+     * @return the average cluster length, or 0 if the table is empty
+     */
+    public double getAverageClusterLength() {
+        return clusterCount == 0 ? 0 : (double) clusteredSlots / clusterCount;
+    }
+
+    /**
+     * Formats a histogram as "lowerBound:count" pairs of its non-empty buckets.
+     *
+     * @param histogram a histogram indexed by HashtableMetrics.bucket
+     * @return the formatted histogram
+     */
+    public static String formatHistogram(long[] histogram) {
+        StringBuilder out = new StringBuilder();
+        for (int b = 0; b < histogram.length; b++) {
+            if (histogram[b] != 0) {
+                if (!out.isEmpty()) {
+                    out.append(' ');
+                }
+                int low = HashtableMetrics.bucketLowerBound(b);
+                int high = b + 1 < histogram.length ? HashtableMetrics.bucketLowerBound(b + 1) - 1 : Integer.MAX_VALUE;
+                out.append(low == high ? String.valueOf(low) : low + "-" + high).append(':').append(histogram[b]);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Adds up the counts of a histogram.
+     *
+     * @param counts the histogram
+     * @return the total count
+     */
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,348 @@
+/**
+ * HopscotchHashing.java
+ *
+ * Subclass of Hashtable implementing hopscotch hashing. Every key lives within
+ * NEIGHBORHOOD slots of its home slot, and each home slot keeps a hop bitmap with bit i set
+ * when slot home + i holds one of its keys. A search reads the bitmap and compares only
+ * the slots it marks, all in one short contiguous range, so even at a load of 0.99 no key
+ * takes more than NEIGHBORHOOD probes, where linear probing walks clusters of thousands.
+ * <p>
+ * An insert walks linearly from the home slot to the first empty slot. While that slot is
+ * outside the neighborhood, an entry between the two that may live in the empty slot is
+ * moved into it, hopping the empty slot back towards home. If no entry can move, the
+ * table is rebuilt at the next capacity right away.
+ * </p>
+ * <p>
+ * Linear probing only walks through a clump of nearby home slots, but here more than
+ * NEIGHBORHOOD keys with homes that close together cannot all be placed, so h1 runs the
+ * hash code through the Murmur3 finalizer before reducing it, whatever hash function the
+ * table uses. Even so, a neighborhood of 64 slots fills up somewhere between a load of 0.94
+ * and 0.96, above which the table rebuilds at double the capacity. recordOverflow keeps the
+ * probe counts of the load reached before that, and HashtableExperiment reports those.
+ * </p>
+ * <p>
+ * The probe count of an entry is its distance from its home slot plus one, the part of
+ * the neighborhood a search scans to reach it, and an unsuccessful search counts the
+ * neighborhood up to its last marked slot. Removal clears the slot and its bit, as no
+ * search passes through other keys' slots, so the table never holds tombstones.
+ * </p>
+ * <p>
+ * Entries still waiting in the old table during a resize have no hop bitmaps; a search
+ * there compares the whole neighborhood of the key directly.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class HopscotchHashing extends Hashtable {
+
+    /** Number of slots a key may be from its home slot, one per bit of a long hop bitmap */
+    public static final int NEIGHBORHOOD = Long.SIZE;
+
+    // Hop bitmap of each slot of the current table, marking the slots holding its keys
+    private long[] hops;
+    private long moves;  // Entries moved to hop an empty slot towards home
+    private long rebuilds;  // Rebuilds at a larger capacity after a failed insert
+
+    /**
+     * Constructor to initialize the hash table with a given capacity
+     *
+     * @param capacity the capacity of the hash table
+     */
+    public HopscotchHashing(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Constructor to initialize the hash table with a given capacity and the load factor
+     * at which it grows
+     *
+     * @param capacity      the initial capacity of the hash table
+     * @param maxLoadFactor the load factor that triggers growth
+     */
+    public HopscotchHashing(int capacity, double maxLoadFactor) {
+        super(capacity, maxLoadFactor);
+    }
+
+    /**
+     * Primary hash function for hopscotch hashing, the home slot of the key's neighborhood
+     * h1(k) = fmix32(k) mod m, where k is the key and m is capacity of table
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the hash value of the key
+     */
+    @Override
+    public int h1(int hash, int m) {
+        return positiveMod(HashFunction.fmix32(hash), m);
+    }
+
+    /**
+     * Secondary hash function for hopscotch hashing is 1, since neighborhoods are runs of
+     * adjacent slots
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return 1
+     */
+    @Override
+    public int h2(int hash, int m) {
+        return 1;
+    }
+
+    /**
+     * Allocates the slot arrays and empty hop bitmaps.
+     *
+     * @param capacity the number of slots
+     */
+    @Override
+    protected void allocate(int capacity) {
+        super.allocate(capacity);
+        hops = new long[capacity];
+    }
+
+    /**
+     * Compares the slots marked in the hop bitmap of the key's home slot. The neighborhood
+     * scanned, up to the matching or last marked slot, is left in findProbes.
+     *
+     * @param k    the keys of the table to probe
+     * @param h    the cached hash codes of that table
+     * @param p    the probe counts of that table
+     * @param m    the capacity of that table
+     * @param key  the key to look for
+     * @param hash the hash code of the key
+     * @return the slot holding the key, or -1 if the key is not in the table
+     */
+    @Override
+    protected int find(Object[] k, int[] h, int[] p, int m, Object key, int hash) {
+        int home = h1(hash, m);
+        if (k != keys) {
+            return findInOldTable(k, h, m, home, key, hash);
+        }
+
+        long bitmap = hops[home];
+        for (long bits = bitmap; bits != 0; bits &= bits - 1) {
+            int offset = Long.numberOfTrailingZeros(bits);
+            int slot = slot(home, offset, m);
+            if (h[slot] == hash && keysEqual(k[slot], key)) {
+                findProbes = offset + 1;
+                return slot;
+            }
+        }
+        findProbes = Math.max(1, NEIGHBORHOOD - Long.numberOfLeadingZeros(bitmap));
+        return -1;
+    }
+
+    /**
+     * Compares every slot of a key's neighborhood in the old table of a resize.
+     *
+     * @param k    the keys of the old table
+     * @param h    the cached hash codes of the old table
+     * @param m    the capacity of the old table
+     * @param home the home slot of the key in the old table
+     * @param key  the key to look for
+     * @param hash the hash code of the key
+     * @return the slot holding the key, or -1 if the key is not in the table
+     */
+    private int findInOldTable(Object[] k, int[] h, int m, int home, Object key, int hash) {
+        int neighborhood = Math.min(NEIGHBORHOOD, m);
+        for (int offset = 0; offset < neighborhood; offset++) {
+            int slot = slot(home, offset, m);
+            Object slotKey = k[slot];
+            if (h[slot] == hash && slotKey != null && slotKey != TOMBSTONE && keysEqual(slotKey, key)) {
+                findProbes = offset + 1;
+                return slot;
+            }
+        }
+        findProbes = neighborhood;
+        return -1;
+    }
+
+    /**
+     * Places a key known to be absent within the neighborhood of its home slot, rebuilding
+     * the table at a larger capacity if no empty slot can be brought into it.
+     *
+     * @param key       the key to place
+     * @param hash      the hash code of the key
+     * @param frequency the frequency count of the key
+     * @return the slot the key was placed in
+     */
+    @Override
+    protected int place(Object key, int hash, int frequency) {
+        int pos = placeEntry(key, hash, frequency);
+        if (pos >= 0) {
+            return pos;
+        }
+        recordOverflow();
+        rebuild(key, hash, frequency);
+        return find(keys, hashes, probes, capacity, key, hash);
+    }
+
+    /**
+     * Finds the first empty slot from the home slot on and hops it back into the
+     * neighborhood, then places the entry there.
+     *
+     * @param key       the key to place
+     * @param hash      the hash code of the key
+     * @param frequency the frequency count of the key
+     * @return the slot the entry was placed in, or -1 if no empty slot could be brought
+     *         into its neighborhood, in which case the table is unchanged apart from moves
+     */
+    private int placeEntry(Object key, int hash, int frequency) {
+        int home = h1(hash, capacity);
+        int free = home;
+        int distance = 0;
+        while (keys[free] != null) {
+            if (++distance == capacity) {
+                return -1;
+            }
+            free = slot(free, 1, capacity);
+        }
+
+        while (distance >= NEIGHBORHOOD) {
+            // Move the entry furthest from the empty slot that may still live in it
+            int hop = -1;
+            for (int back = NEIGHBORHOOD - 1; back > 0 && hop < 0; back--) {
+                int bucket = slot(free, capacity - back, capacity);
+                long candidates = hops[bucket] & ((1L << back) - 1);
+                if (candidates != 0) {
+                    int offset = Long.numberOfTrailingZeros(candidates);
+                    int from = slot(bucket, offset, capacity);
+                    keys[free] = keys[from];
+                    hashes[free] = hashes[from];
+                    frequencies[free] = frequencies[from];
+                    probes[free] = back + 1;
+                    totalProbe += back - offset;
+                    hops[bucket] ^= (1L << offset) | (1L << back);
+                    keys[from] = null;
+                    moves++;
+                    hop = back - offset;
+                    free = from;
+                }
+            }
+            if (hop < 0) {
+                return -1;
+            }
+            distance -= hop;
+        }
+
+        keys[free] = key;
+        hashes[free] = hash;
+        frequencies[free] = frequency;
+        probes[free] = distance + 1;
+        hops[home] |= 1L << distance;
+        totalProbe += distance + 1;
+        return free;
+    }
+
+    /**
+     * Rebuilds the current table at the next capacity, placing every entry and the one that
+     * did not fit again, and keeps growing until all of them fit. An old table still being
+     * migrated is left as is.
+     *
+     * @param key       the key that did not fit
+     * @param hash      the hash code of the key
+     * @param frequency the frequency count of the key
+     */
+    private void rebuild(Object key, int hash, int frequency) {
+        Object[] liveKeys = keys;
+        int[] liveHashes = hashes;
+        int[] liveFrequencies = frequencies;
+        for (int i = 0; i < liveKeys.length; i++) {
+            if (liveKeys[i] != null) {
+                totalProbe -= probes[i];
+            }
+        }
+
+        int newCapacity = capacity;
+        while (true) {
+            try {
+                newCapacity = nextCapacity(newCapacity);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Hashtable cannot grow past capacity " + newCapacity);
+            }
+            rebuilds++;
+            allocate(newCapacity);
+            capacity = newCapacity;
+
+            long probeTotal = totalProbe;
+            boolean placedAll = placeEntry(key, hash, frequency) >= 0;
+            for (int i = 0; placedAll && i < liveKeys.length; i++) {
+                if (liveKeys[i] != null) {
+                    placedAll = placeEntry(liveKeys[i], liveHashes[i], liveFrequencies[i]) >= 0;
+                }
+            }
+            if (placedAll) {
+                return;
+            }
+            totalProbe = probeTotal;
+        }
+    }
+
+    /**
+     * Empties the slot of the removed entry and clears its bit in its home slot's bitmap.
+     *
+     * @param pos the slot holding the entry to remove
+     */
+    @Override
+    protected void removeAt(int pos) {
+        int home = h1(hashes[pos], capacity);
+        hops[home] &= ~(1L << (probes[pos] - 1));
+        keys[pos] = null;
+        totalProbe -= probes[pos];
+        size--;
+    }
+
+    /**
+     * Does nothing, as the table never holds tombstones to clear.
+     */
+    @Override
+    protected void compact() {
+    }
+
+    /**
+     * Rebuilds the hop bitmaps of a table restored from a snapshot from the cached hash
+     * codes and probe counts, and empties any tombstone slots.
+     */
+    @Override
+    protected void restored() {
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] == TOMBSTONE) {
+                keys[i] = null;
+            } else if (keys[i] != null) {
+                hops[h1(hashes[i], capacity)] |= 1L << (probes[i] - 1);
+            }
+        }
+        tombstones = 0;
+    }
+
+    /**
+     * Finds the slot at an offset past another, wrapping around the end of the table.
+     *
+     * @param pos    the slot
+     * @param offset the offset, in the range [0, m)
+     * @param m      the capacity of the table
+     * @return the slot
+     */
+    private static int slot(int pos, int offset, int m) {
+        int slot = pos + offset;
+        return slot < m ? slot : slot - m;
+    }
+
+    /**
+     * Get the number of entries moved to bring an empty slot into a neighborhood.
+     *
+     * @return the move count
+     */
+    public long getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * Get the number of times a failed insert rebuilt the table at a larger capacity.
+     *
+     * @return the rebuild count
+     */
+    public long getRebuildCount() {
+        return rebuilds;
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.IOException;
+
+/**
+ * IntHashtable.java
+ *
+ * Abstract open-addressing hash table specialized for primitive int keys. Keys, frequency
+ * counts and probe counts live in parallel int arrays, so inserting never boxes the key or
+ * allocates a HashObject. A frequency count of 0 is the empty-slot sentinel, leaving every
+ * int value usable as a key.
+ * <p>
+ * Probe sequences and dumps match the Object-keyed Hashtable for Integer keys, since
+ * Integer.hashCode() is the value itself.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public abstract class IntHashtable {
+
+    /** Frequency count marking an empty slot */
+    protected static final int EMPTY = 0;
+
+    // Parallel arrays holding the key, frequency count and probe count of each slot
+    protected final int[] keys;
+    protected final int[] frequencies;
+    protected final int[] probes;
+    protected int size;  // Current number of elements in the table
+    protected final int capacity;  // Size of the hash table
+    protected long totalProbe;  // Probe count of table
+    private int batchSink;  // Keeps the reads of insertAll's touch pass from being optimized away
+
+    /**
+     * Constructor to initialize the hash table with a given capacity.
+     *
+     * @param capacity the capacity of the hash table
+     */
+    public IntHashtable(int capacity) {
+        if (capacity < 3) {
+            throw new IllegalArgumentException("Capacity must be at least 3: " + capacity);
+        }
+        this.capacity = capacity;
+        this.keys = new int[capacity];
+        this.frequencies = new int[capacity];
+        this.probes = new int[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Primary hash function, mapping a key to its home slot.
+     *
+     * @param key the key to hash
+     * @return the home slot of the key in the range [0, capacity - 1]
+     */
+    public abstract int h1(int key);
+
+    /**
+     * Secondary hash function, mapping a key to its probe step size.
+     *
+     * @param key the key to hash
+     * @return the probe step size (used in double hashing)
+     */
+    public abstract int h2(int key);
+
+    /**
+     * Insert a key into the hash table. If the key already exists, its frequency count is incremented.
+     *
+     * @param key the key to insert into the table
+     * @return the position in the table the key was inserted
+     * @throws IllegalStateException if the key is new and the table is full
+     */
+    public int insert(int key) {
+        int hash = h1(key);
+        int stepSize = h2(key);
+        int probeCount = 1; // There is a guaranteed probe
+
+        while (frequencies[hash] != EMPTY) {
+            if (keys[hash] == key) {
+                frequencies[hash]++;
+                return hash;
+            }
+            if (probeCount == capacity) {
+                throw new IllegalStateException("IntHashtable is full at capacity " + capacity);
+            }
+            hash = positiveMod(hash + stepSize, capacity);
+            probeCount++;
+        }
+
+        // Insert new key and update probe count
+        keys[hash] = key;
+        frequencies[hash] = 1;
+        probes[hash] = probeCount;
+
+        totalProbe += probeCount;
+        size++;
+        return hash;
+    }
+
+    /**
+     * Inserts the keys of a range of an array, in order, a block of Hashtable.BATCH_SIZE keys
+     * at a time. The home slot of every key in a block is read before any key is inserted,
+     * so their cache misses overlap.
+     *
+     * @param batch the keys to insert
+     * @param from  the index of the first key to insert
+     * @param to    the index after the last key to insert
+     * @return the position each key was inserted at, as insert would return it
+     * @throws IllegalStateException if a key is new and the table is full
+     */
+    public int[] insertAll(int[] batch, int from, int to) {
+        int[] positions = new int[to - from];
+        for (int start = from; start < to; start += Hashtable.BATCH_SIZE) {
+            int end = Math.min(start + Hashtable.BATCH_SIZE, to);
+            int sink = 0;
+            for (int i = start; i < end; i++) {
+                int home = h1(batch[i]);
+                sink += frequencies[home] + keys[home];
+            }
+            batchSink += sink;
+            for (int i = start; i < end; i++) {
+                positions[i - from] = insert(batch[i]);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Search for a key in the hash table
+     *
+     * @param key the key to search for
+     * @return the position of the key in the table, or -1 if not found
+     */
+    public int search(int key) {
+        int hash = h1(key);
+        int stepSize = h2(key);
+
+        for (int probeCount = 0; probeCount < capacity && frequencies[hash] != EMPTY; probeCount++) {
+            if (keys[hash] == key) {
+                return hash;
+            }
+            hash = positiveMod(hash + stepSize, capacity);
+        }
+
+        return -1;  // Not found
+    }
+
+    /**
+     * Get the frequency count of a key.
+     *
+     * @param key the key to look up
+     * @return the number of times the key was inserted, or 0 if it is not in the table
+     */
+    public int getFrequency(int key) {
+        int pos = search(key);
+        return pos < 0 ? 0 : frequencies[pos];
+    }
+
+    /**
+     * Get the current size of the hash table.
+     *
+     * @return the number of elements in the hash table
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the total probe count
+     *
+     * @return total probe count
+     */
+    public long getProbeCount() {
+        return totalProbe;
+    }
+
+    /**
+     * Scans the table for the longest probe sequence any stored key needed.
+     *
+     * @return the maximum probe count, or 0 if the table is empty
+     */
+    public int getMaxProbeCount() {
+        int max = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (frequencies[i] != EMPTY) {
+                max = Math.max(max, probes[i]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Get the capacity of the hash table.
+     *
+     * @return the capacity of the hash table
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Computes the positive modulus of a dividend and divisor.
+     *
+     * @param dividend the dividend (numerator) of the modulus operation
+     * @param divisor the divisor (denominator) of the modulus operation
+     * @return the positive modulus result in the range [0, divisor - 1]
+     */
+    protected int positiveMod(int dividend, int divisor) {
+        int quotient = dividend % divisor;
+        if (quotient < 0)
+            quotient += divisor;
+        return quotient;
+    }
+
+    /**
+     * Dumps the hashtable to a file in the same format as Hashtable.dumpToFile
+     *
+     * @param fileName the file to dump to
+     */
+    public void dumpToFile(String fileName) {
+        try (DumpWriter out = new DumpWriter(fileName)) {
+            for (int i = 0; i < capacity; i++) {
+                if (frequencies[i] != EMPTY) {
+                    out.writeSlot(i, keys[i], frequencies[i], probes[i]);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Unable to write to file " + fileName);
+        }
+    }
+}
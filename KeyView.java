@@ -0,0 +1,37 @@
+/**
+ * KeyView.java
+ *
+ * A lookup-only stand-in for a key that has not been built as an object yet, such as a
+ * word still sitting in a file buffer. Hashtable accepts a KeyView anywhere it accepts a
+ * key: probing uses the view's hash code and matches method, and only an insert of a new
+ * key calls materialize to build the object that gets stored.
+ *
+ * @author Kayden Humphries
+ */
+public interface KeyView {
+
+    /**
+     * Returns the hash code of the key this view stands for, which must equal the
+     * hashCode() of the materialized key. Views of CharSequence keys should also be
+     * CharSequences of the same chars, so hash functions reading the chars agree too.
+     *
+     * @return the hash code of the key
+     */
+    @Override
+    int hashCode();
+
+    /**
+     * Checks whether a stored key is the key this view stands for.
+     *
+     * @param key the stored key to compare against
+     * @return true if the materialized key would equal the stored key
+     */
+    boolean matches(Object key);
+
+    /**
+     * Builds the key object this view stands for.
+     *
+     * @return the key
+     */
+    Object materialize();
+}
@@ -16,26 +16,52 @@ public class LinearProbing extends Hashtable {
         super(capacity);
     }
 
+    /**
+     * Constructor to initialize the hash table with a given capacity and the load factor
+     * at which it grows
+     *
+     * @param capacity      the initial capacity of the hash table
+     * @param maxLoadFactor the load factor that triggers growth
+     */
+    public LinearProbing(int capacity, double maxLoadFactor) {
+        super(capacity, maxLoadFactor);
+    }
+
+    /**
+     * Constructor to initialize the hash table with a given capacity, the load factor at
+     * which it grows, and the hash function keys are mixed with
+     *
+     * @param capacity      the initial capacity of the hash table
+     * @param maxLoadFactor the load factor that triggers growth
+     * @param hashFunction  the hash function keys are mixed with
+     */
+    public LinearProbing(int capacity, double maxLoadFactor, HashFunction hashFunction) {
+        super(capacity, maxLoadFactor);
+        setHashFunction(hashFunction);
+    }
+
     /**
      * Primary hash function for linear probing
      * h1(k) = k mod m, where k is the key and m is capacity of table
      *
-     * @param key the key to hash
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
      * @return the hash value of the key
      */
     @Override
-    public int h1(Object key) {
-        return positiveMod(key.hashCode(), capacity);
+    public int h1(int hash, int m) {
+        return positiveMod(hash, m);
     }
 
     /**
      * Secondary hash function for linear probing is 1
      *
-     * @param key the key to hash
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
      * @return 1
      */
     @Override
-    public int h2(Object key) {
+    public int h2(int hash, int m) {
         return 1;
     }
 }
\ No newline at end of file
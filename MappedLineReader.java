@@ -0,0 +1,140 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MappedLineReader.java
+ *
+ * Reads the lines of a UTF-8 text file by memory-mapping it and splitting on the mapped
+ * bytes directly. Each line is handed out as the same reusable Utf8Slice, so reading does
+ * not allocate a String per line. Lines end at "\n", "\r\n" or "\r", matching
+ * Scanner.nextLine for text using those separators.
+ * <p>
+ * Files larger than one mapping are mapped in consecutive windows, each starting at the
+ * first line not yet read.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class MappedLineReader implements AutoCloseable {
+
+    /** Default largest number of bytes mapped at once */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final int windowSize;
+    private final long fileSize;
+    private final Utf8Slice line = new Utf8Slice();
+
+    private MappedByteBuffer window;
+    private long windowStart;  // File position of the first byte of the window
+    private int position;      // Next unread byte within the window
+
+    /**
+     * Opens and maps the given file.
+     *
+     * @param path the file to read
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedLineReader(Path path) throws IOException {
+        this(path, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Opens the given file, mapping at most windowSize bytes of it at once.
+     *
+     * @param path       the file to read
+     * @param windowSize the largest number of bytes to map at once, which bounds the line length
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedLineReader(Path path, int windowSize) throws IOException {
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("Window size must be at least 2: " + windowSize);
+        }
+        this.windowSize = windowSize;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        map(0);
+    }
+
+    /**
+     * Reads the next line.
+     *
+     * @return the reusable slice holding the line without its separator, or null at the
+     *         end of the file. The slice is only valid until the next call.
+     * @throws IOException if the next window of the file cannot be mapped
+     */
+    public Utf8Slice nextLine() throws IOException {
+        return nextLine(line);
+    }
+
+    /**
+     * Reads the next line into a slice supplied by the caller, so several lines can be held
+     * at once. The slice stays valid after later calls.
+     *
+     * @param into the slice to point at the line
+     * @return the given slice holding the line without its separator, or null at the end of
+     *         the file
+     * @throws IOException if the next window of the file cannot be mapped
+     */
+    public Utf8Slice nextLine(Utf8Slice into) throws IOException {
+        int limit = window.limit();
+        if (position == limit) {
+            if (windowStart + limit == fileSize) {
+                return null;
+            }
+            map(windowStart + position);
+            limit = window.limit();
+        }
+
+        int end = position;
+        while (end < limit && window.get(end) != '\n' && window.get(end) != '\r') {
+            end++;
+        }
+
+        // A line or "\r\n" cut off by the end of a window is reread from the start of the next one
+        boolean cutOff = end == limit || (end + 1 == limit && window.get(end) == '\r');
+        if (cutOff && windowStart + limit < fileSize) {
+            if (position == 0) {
+                throw new IOException("Line longer than " + windowSize + " bytes");
+            }
+            map(windowStart + position);
+            return nextLine(into);
+        }
+
+        into.set(window, position, end - position);
+        position = end;
+        if (position < limit) {
+            // Skip the separator, treating "\r\n" as one
+            if (window.get(position) == '\r' && position + 1 < limit && window.get(position + 1) == '\n') {
+                position++;
+            }
+            position++;
+        }
+        return into;
+    }
+
+    /**
+     * Maps the window of the file starting at the given position.
+     *
+     * @param start the file position to map from
+     * @throws IOException if the window cannot be mapped
+     */
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, fileSize - start));
+        position = 0;
+    }
+
+    /**
+     * Closes the underlying file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
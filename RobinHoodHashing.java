@@ -0,0 +1,175 @@
+/**
+ * RobinHoodHashing.java
+ *
+ * Subclass of Hashtable implementing Robin Hood hashing on top of linear probing. An
+ * inserted key takes the slot of any resident that sits closer to its own home slot,
+ * and the displaced resident continues probing. This keeps the variance of probe
+ * counts low, lets unsuccessful searches stop as soon as they pass a resident closer
+ * to home than the key would be, and allows deletion by shifting the following run of
+ * entries back one slot instead of leaving tombstones.
+ *
+ * @author Kayden Humphries
+ */
+public class RobinHoodHashing extends Hashtable {
+
+    /**
+     * Constructor to initialize the hash table with a given capacity
+     *
+     * @param capacity the capacity of the hash table
+     */
+    public RobinHoodHashing(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Constructor to initialize the hash table with a given capacity and the load factor
+     * at which it grows
+     *
+     * @param capacity      the initial capacity of the hash table
+     * @param maxLoadFactor the load factor that triggers growth
+     */
+    public RobinHoodHashing(int capacity, double maxLoadFactor) {
+        super(capacity, maxLoadFactor);
+    }
+
+    /**
+     * Primary hash function for Robin Hood hashing
+     * h1(k) = k mod m, where k is the key and m is capacity of table
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the hash value of the key
+     */
+    @Override
+    public int h1(int hash, int m) {
+        return positiveMod(hash, m);
+    }
+
+    /**
+     * Secondary hash function for Robin Hood hashing is 1, since backward-shift deletion
+     * relies on linear probing
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return 1
+     */
+    @Override
+    public int h2(int hash, int m) {
+        return 1;
+    }
+
+    /**
+     * Walks the probe sequence of a key, stopping early once it reaches a slot whose
+     * resident has a lower probe count than the key would have there. Insertion would
+     * have displaced that resident, so the key cannot be further along. The number of slots
+     * examined is left in findProbes.
+     *
+     * @param k    the keys of the table to probe
+     * @param h    the cached hash codes of that table
+     * @param p    the probe counts of that table
+     * @param m    the capacity of that table
+     * @param key  the key to look for
+     * @param hash the hash code of the key
+     * @return the slot holding the key, or -1 if the key is not in the table
+     */
+    @Override
+    protected int find(Object[] k, int[] h, int[] p, int m, Object key, int hash) {
+        int pos = h1(hash, m);
+
+        Object slotKey;
+        int probeCount = 1;
+        for (; probeCount <= m && (slotKey = k[pos]) != null; probeCount++) {
+            if (p[pos] < probeCount) {
+                findProbes = probeCount;
+                return -1;
+            }
+            if (h[pos] == hash && slotKey != TOMBSTONE && keysEqual(slotKey, key)) {
+                findProbes = probeCount;
+                return pos;
+            }
+            pos = (pos + 1 == m) ? 0 : pos + 1;
+        }
+        findProbes = Math.min(probeCount, m);
+        return -1;
+    }
+
+    /**
+     * Places a key known to be absent, swapping it with every resident it passes that has
+     * a lower probe count and carrying the displaced resident on until an empty slot is found.
+     *
+     * @param key       the key to place
+     * @param hash      the hash code of the key
+     * @param frequency the frequency count of the key
+     * @return the slot the key was placed in
+     */
+    @Override
+    protected int place(Object key, int hash, int frequency) {
+        int pos = h1(hash, capacity);
+        int probeCount = 1; // There is a guaranteed probe
+        int placedAt = -1;
+
+        while (keys[pos] != null) {
+            if (probes[pos] < probeCount) {
+                // The resident is closer to home, so the carried entry takes its slot
+                Object residentKey = keys[pos];
+                int residentHash = hashes[pos];
+                int residentFrequency = frequencies[pos];
+                int residentProbes = probes[pos];
+
+                store(pos, key, hash, frequency, probeCount);
+                totalProbe += probeCount - residentProbes;
+                if (placedAt < 0) {
+                    placedAt = pos;
+                }
+
+                key = residentKey;
+                hash = residentHash;
+                frequency = residentFrequency;
+                probeCount = residentProbes;
+            }
+            pos = (pos + 1 == capacity) ? 0 : pos + 1;
+            probeCount++;
+        }
+
+        store(pos, key, hash, frequency, probeCount);
+        totalProbe += probeCount;
+        return placedAt < 0 ? pos : placedAt;
+    }
+
+    /**
+     * Removes the entry in the given slot by shifting every following entry that is not
+     * in its home slot back by one, so no tombstone is left behind.
+     *
+     * @param pos the slot holding the entry to remove
+     */
+    @Override
+    protected void removeAt(int pos) {
+        totalProbe -= probes[pos];
+        size--;
+
+        int next = (pos + 1 == capacity) ? 0 : pos + 1;
+        while (keys[next] != null && probes[next] > 1) {
+            store(pos, keys[next], hashes[next], frequencies[next], probes[next] - 1);
+            totalProbe--;
+            pos = next;
+            next = (next + 1 == capacity) ? 0 : next + 1;
+        }
+        keys[pos] = null;
+    }
+
+    /**
+     * Writes an entry into a slot of the current table.
+     *
+     * @param pos        the slot to write
+     * @param key        the key of the entry
+     * @param hash       the hash code of the key
+     * @param frequency  the frequency count of the key
+     * @param probeCount the probe count of the key in that slot
+     */
+    private void store(int pos, Object key, int hash, int frequency, int probeCount) {
+        keys[pos] = key;
+        hashes[pos] = hash;
+        frequencies[pos] = frequency;
+        probes[pos] = probeCount;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * ShardedCounts.java
+ *
+ * A merged frequency view over the shard tables of a WordCountPipeline. Every key is
+ * routed to exactly one shard by shardOf, so the shards hold disjoint keys: a lookup only
+ * asks the key's own shard, and the view's entries are simply the entries of every shard.
+ * Nothing is copied to build the view.
+ * <p>
+ * shardOf takes the high bits of the Murmur3-mixed hash code, so routing stays independent
+ * of the low bits the shard tables reduce the same hash codes with.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class ShardedCounts {
+
+    private final Hashtable[] shards;
+
+    /**
+     * Constructor to view a set of shard tables filled through shardOf.
+     *
+     * @param shards the shard tables, indexed by shardOf
+     */
+    public ShardedCounts(Hashtable[] shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * Picks the shard a key belongs to.
+     *
+     * @param key    the key
+     * @param shards the number of shards
+     * @return the shard index in the range [0, shards - 1]
+     */
+    public static int shardOf(Object key, int shards) {
+        return (int) (((HashFunction.fmix32(key.hashCode()) & 0xFFFFFFFFL) * shards) >>> 32);
+    }
+
+    /**
+     * Get the frequency count of a key.
+     *
+     * @param key the key to look up
+     * @return the number of times the key was counted, or 0 if it never was
+     */
+    public int getFrequency(Object key) {
+        HashObject entry = shards[shardOf(key, shards.length)].search(key);
+        return entry == null ? 0 : entry.getFrequencyCount();
+    }
+
+    /**
+     * Get the number of distinct keys across every shard.
+     *
+     * @return the number of distinct keys
+     */
+    public int getSize() {
+        int size = 0;
+        for (Hashtable shard : shards) {
+            size += shard.getSize();
+        }
+        return size;
+    }
+
+    /**
+     * Sums the frequency counts of every key, the number of keys counted including duplicates.
+     *
+     * @return the total frequency count
+     */
+    public long getTotal() {
+        return stream().mapToLong(HashObject::getFrequencyCount).sum();
+    }
+
+    /**
+     * Finds the k keys with the highest frequency counts across every shard. Each shard
+     * finds its own top k with its bounded heap, and only those k per shard are merged.
+     *
+     * @param k the number of entries to return
+     * @return an unmodifiable list of the entries with the k highest frequency counts,
+     *         highest first, ties in shard order
+     */
+    public List<HashObject> topK(int k) {
+        List<HashObject> candidates = new ArrayList<>();
+        for (Hashtable shard : shards) {
+            candidates.addAll(shard.topK(k));
+        }
+        candidates.sort(Comparator.comparingInt(HashObject::getFrequencyCount).reversed());
+        return List.copyOf(candidates.subList(0, Math.min(k, candidates.size())));
+    }
+
+    /**
+     * Returns a stream over the entries of every shard, one shard after another. Each shard
+     * splits by slot range under parallel().
+     *
+     * @return a stream of the entries
+     */
+    public Stream<HashObject> stream() {
+        return Arrays.stream(shards).flatMap(Hashtable::stream);
+    }
+
+    /**
+     * Get the shard tables.
+     *
+     * @return the shard tables, indexed by shardOf
+     */
+    public Hashtable[] getShards() {
+        return shards;
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * SlotSpliterator.java
+ *
+ * Spliterator over the occupied slots of a range of a Hashtable's slot arrays, yielding
+ * each entry as a HashObject with its key, frequency count and probe count. Splitting
+ * hands the first half of the remaining slot range to a new spliterator, so a parallel
+ * stream divides the table into contiguous slot ranges that each core scans on its own,
+ * without any shared state.
+ * <p>
+ * Entries come out in slot order, the same order as the dump. The size of a range is
+ * estimated from the table's load factor, since counting its entries would mean scanning
+ * it. The table must not be modified while the spliterator is in use.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class SlotSpliterator implements Spliterator<HashObject> {
+
+    /** Ranges with fewer slots than this are not split further */
+    public static final int MIN_SPLIT_SLOTS = 1 << 12;
+
+    private final Object[] keys;
+    private final int[] frequencies;
+    private final int[] probes;
+    private final double loadFactor;  // Fraction of slots holding an entry, for size estimates
+    private int pos;  // Next slot to look at
+    private final int end;  // Slot after the last one in the range
+
+    /**
+     * Constructor to cover a range of a table's slots.
+     *
+     * @param keys        the keys of the table, null for an empty slot
+     * @param frequencies the frequency counts of the table
+     * @param probes      the probe counts of the table
+     * @param loadFactor  the fraction of slots holding an entry
+     * @param from        the first slot of the range
+     * @param to          the slot after the last one of the range
+     */
+    public SlotSpliterator(Object[] keys, int[] frequencies, int[] probes, double loadFactor, int from, int to) {
+        this.keys = keys;
+        this.frequencies = frequencies;
+        this.probes = probes;
+        this.loadFactor = loadFactor;
+        this.pos = from;
+        this.end = to;
+    }
+
+    /**
+     * Yields the entry of the next occupied slot of the range, if there is one.
+     *
+     * @param action the action to run on the entry
+     * @return true if an entry was yielded, false if the range is exhausted
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super HashObject> action) {
+        while (pos < end) {
+            int i = pos++;
+            if (isEntry(keys[i])) {
+                action.accept(new HashObject(keys[i], frequencies[i], probes[i]));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Yields the entries of every remaining occupied slot of the range.
+     *
+     * @param action the action to run on each entry
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super HashObject> action) {
+        Object[] k = keys;
+        int to = end;
+        for (int i = pos; i < to; i++) {
+            if (isEntry(k[i])) {
+                action.accept(new HashObject(k[i], frequencies[i], probes[i]));
+            }
+        }
+        pos = to;
+    }
+
+    /**
+     * Splits off the first half of the remaining slots, unless fewer than MIN_SPLIT_SLOTS
+     * remain.
+     *
+     * @return a spliterator over the first half, or null if the range is too small to split
+     */
+    @Override
+    public Spliterator<HashObject> trySplit() {
+        int from = pos;
+        if (end - from < MIN_SPLIT_SLOTS) {
+            return null;
+        }
+        int mid = (from + end) >>> 1;
+        pos = mid;
+        return new SlotSpliterator(keys, frequencies, probes, loadFactor, from, mid);
+    }
+
+    /**
+     * Estimates the number of entries left in the range from the table's load factor.
+     *
+     * @return the estimated number of remaining entries
+     */
+    @Override
+    public long estimateSize() {
+        return (long) Math.ceil((end - pos) * loadFactor);
+    }
+
+    /**
+     * Entries come out in slot order, are never null, and hold distinct keys.
+     *
+     * @return ORDERED, NONNULL and DISTINCT
+     */
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | DISTINCT;
+    }
+
+    /**
+     * Checks whether a slot's key is a live entry rather than empty or a tombstone.
+     *
+     * @param key the slot's key
+     * @return true if the slot holds an entry
+     */
+    private static boolean isEntry(Object key) {
+        return key != null && key != Hashtable.TOMBSTONE;
+    }
+}
@@ -0,0 +1,317 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * SwissTable.java
+ *
+ * Subclass of Hashtable probing groups of 8 slots at a time, in the style of Abseil's Swiss
+ * tables. Alongside the slot arrays it keeps one control byte per slot: EMPTY, DELETED, or
+ * for a live entry a 7-bit tag taken from the top bits of its hash code. A probe loads the
+ * 8 control bytes of a group as one long and finds every slot with a matching tag, and
+ * every empty slot, with a few bitwise operations (SWAR), so keys are only compared on tag
+ * matches and a miss usually costs a single control word read.
+ * <p>
+ * Groups start at the key's home slot and advance by a double hashing step of at least 8
+ * slots, which still visits every group start for the twin prime capacities the table
+ * grows through. The control array repeats its first 7 bytes past the end, so a group
+ * starting near the end reads as one word. Probe counts are the number of groups examined.
+ * </p>
+ * <p>
+ * Entries still waiting in the old table during a resize have no control bytes; the same
+ * group sequence is walked there by looking at the keys directly.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class SwissTable extends Hashtable {
+
+    /** Number of slots probed at once */
+    public static final int GROUP_WIDTH = 8;
+
+    private static final byte EMPTY = (byte) 0x80;
+    private static final byte DELETED = (byte) 0xFE;
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long MSBS = 0x8080808080808080L;
+
+    // Reads 8 control bytes at any index as one long, byte i of the group in bits 8i to 8i + 7
+    private static final VarHandle GROUP =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // Control byte of each slot of the current table, followed by copies of the first
+    // GROUP_WIDTH - 1 of them
+    private byte[] control;
+
+    /**
+     * Constructor to initialize the hash table with a given capacity
+     *
+     * @param capacity the capacity of the hash table
+     */
+    public SwissTable(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Constructor to initialize the hash table with a given capacity and the load factor
+     * at which it grows
+     *
+     * @param capacity      the initial capacity of the hash table
+     * @param maxLoadFactor the load factor that triggers growth
+     */
+    public SwissTable(int capacity, double maxLoadFactor) {
+        super(capacity, maxLoadFactor);
+    }
+
+    /**
+     * Primary hash function for Swiss tables, the slot the first group starts at
+     * h1(k) = k mod m, where k is the key and m is capacity of table
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the hash value of the key
+     */
+    @Override
+    public int h1(int hash, int m) {
+        return positiveMod(hash, m);
+    }
+
+    /**
+     * Secondary hash function for Swiss tables, the distance between group starts
+     * h2(k) = 8 + (k mod (m - 8)), or 1 for tables no larger than a group
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return the group step size
+     */
+    @Override
+    public int h2(int hash, int m) {
+        return m > GROUP_WIDTH ? GROUP_WIDTH + positiveMod(hash, m - GROUP_WIDTH) : 1;
+    }
+
+    /**
+     * Allocates the slot arrays and an all-empty control array.
+     *
+     * @param capacity the number of slots
+     */
+    @Override
+    protected void allocate(int capacity) {
+        super.allocate(capacity);
+        control = new byte[capacity + GROUP_WIDTH - 1];
+        Arrays.fill(control, EMPTY);
+    }
+
+    /**
+     * Walks the group sequence of a key. In the current table every group is matched
+     * against the key's tag through its control word and the walk ends at the first group
+     * holding an empty slot. The number of groups examined is left in findProbes.
+     *
+     * @param k    the keys of the table to probe
+     * @param h    the cached hash codes of that table
+     * @param p    the probe counts of that table
+     * @param m    the capacity of that table
+     * @param key  the key to look for
+     * @param hash the hash code of the key
+     * @return the slot holding the key, or -1 if the key is not in the table
+     */
+    @Override
+    protected int find(Object[] k, int[] h, int[] p, int m, Object key, int hash) {
+        if (k != keys) {
+            return findInOldTable(k, h, m, key, hash);
+        }
+
+        int pos = h1(hash, m);
+        int step = h2(hash, m);
+        byte tag = tag(hash);
+        long tagBytes = LSBS * tag;
+
+        for (int group = 1; group <= m; group++) {
+            long word = (long) GROUP.get(control, pos);
+
+            // Bytes equal to the tag become zero, then the zero bytes get their top bit set.
+            // A byte just above a real match can be flagged too, which the key check rejects.
+            long x = word ^ tagBytes;
+            for (long matches = (x - LSBS) & ~x & MSBS; matches != 0; matches &= matches - 1) {
+                int slot = slot(pos, Long.numberOfTrailingZeros(matches) >>> 3, m);
+                if (control[slot] == tag && h[slot] == hash && keysEqual(k[slot], key)) {
+                    findProbes = group;
+                    return slot;
+                }
+            }
+            if (matchEmpty(word) != 0) {
+                findProbes = group;
+                return -1;
+            }
+            pos = positiveMod(pos + step, m);
+        }
+        findProbes = m;
+        return -1;
+    }
+
+    /**
+     * Walks the group sequence of a key in the old table of a resize, looking at its keys
+     * instead of control bytes.
+     *
+     * @param k    the keys of the old table
+     * @param h    the cached hash codes of the old table
+     * @param m    the capacity of the old table
+     * @param key  the key to look for
+     * @param hash the hash code of the key
+     * @return the slot holding the key, or -1 if the key is not in the table
+     */
+    private int findInOldTable(Object[] k, int[] h, int m, Object key, int hash) {
+        int pos = h1(hash, m);
+        int step = h2(hash, m);
+
+        for (int group = 1; group <= m; group++) {
+            boolean sawEmpty = false;
+            for (int i = 0; i < GROUP_WIDTH; i++) {
+                int slot = slot(pos, i, m);
+                Object slotKey = k[slot];
+                if (slotKey == null) {
+                    sawEmpty = true;
+                } else if (h[slot] == hash && slotKey != TOMBSTONE && keysEqual(slotKey, key)) {
+                    findProbes = group;
+                    return slot;
+                }
+            }
+            if (sawEmpty) {
+                findProbes = group;
+                return -1;
+            }
+            pos = positiveMod(pos + step, m);
+        }
+        findProbes = m;
+        return -1;
+    }
+
+    /**
+     * Places a key known to be absent into the first empty or deleted slot of the first
+     * group along its sequence that has one.
+     *
+     * @param key       the key to place
+     * @param hash      the hash code of the key
+     * @param frequency the frequency count of the key
+     * @return the slot the key was placed in
+     */
+    @Override
+    protected int place(Object key, int hash, int frequency) {
+        int pos = h1(hash, capacity);
+        int step = h2(hash, capacity);
+        int group = 1;
+
+        long free;
+        while ((free = (long) GROUP.get(control, pos) & MSBS) == 0) {
+            pos = positiveMod(pos + step, capacity);
+            group++;
+        }
+        int slot = slot(pos, Long.numberOfTrailingZeros(free) >>> 3, capacity);
+
+        if (control[slot] == DELETED) {
+            tombstones--;
+        }
+        setControl(slot, tag(hash));
+        keys[slot] = key;
+        hashes[slot] = hash;
+        frequencies[slot] = frequency;
+        probes[slot] = group;
+
+        totalProbe += group;
+        return slot;
+    }
+
+    /**
+     * Marks the slot's control byte as deleted before leaving the usual tombstone behind.
+     *
+     * @param pos the slot holding the entry to remove
+     */
+    @Override
+    protected void removeAt(int pos) {
+        setControl(pos, DELETED);
+        super.removeAt(pos);
+    }
+
+    /**
+     * Rebuilds the table at the same capacity, clearing every tombstone. Group sequences
+     * cannot be replayed in place, so the live entries are copied out and placed again.
+     */
+    @Override
+    protected void compact() {
+        finishMigration();
+
+        Object[] liveKeys = keys;
+        int[] liveHashes = hashes;
+        int[] liveFrequencies = frequencies;
+        allocate(capacity);
+        tombstones = 0;
+        totalProbe = 0;
+
+        for (int i = 0; i < liveKeys.length; i++) {
+            if (liveKeys[i] != null && liveKeys[i] != TOMBSTONE) {
+                place(liveKeys[i], liveHashes[i], liveFrequencies[i]);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the control bytes of a table restored from a snapshot: the tag of each live
+     * entry's cached hash code, and DELETED for each tombstone.
+     */
+    @Override
+    protected void restored() {
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] == TOMBSTONE) {
+                setControl(i, DELETED);
+            } else if (keys[i] != null) {
+                setControl(i, tag(hashes[i]));
+            }
+        }
+    }
+
+    /**
+     * Finds the bytes of a control word that are EMPTY: top bit set, and unlike DELETED,
+     * bit 1 clear.
+     *
+     * @param word 8 control bytes
+     * @return the top bit of each empty byte
+     */
+    private static long matchEmpty(long word) {
+        return word & ~(word << 6) & MSBS;
+    }
+
+    /**
+     * Computes the 7-bit tag of a hash code, taken from its top bits since its low bits
+     * pick the home slot.
+     *
+     * @param hash the hash code
+     * @return the tag, in the range [0, 127]
+     */
+    private static byte tag(int hash) {
+        return (byte) (hash >>> 25);
+    }
+
+    /**
+     * Finds the slot at an offset into a group.
+     *
+     * @param pos    the slot the group starts at
+     * @param offset the offset into the group
+     * @param m      the capacity of the table
+     * @return the slot
+     */
+    private static int slot(int pos, int offset, int m) {
+        int slot = pos + offset;
+        return slot < m ? slot : slot % m;
+    }
+
+    /**
+     * Sets the control byte of a slot, along with its copies past the end of the array.
+     *
+     * @param pos   the slot
+     * @param value the control byte
+     */
+    private void setControl(int pos, byte value) {
+        for (int i = pos; i < control.length; i += capacity) {
+            control[i] = value;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+/**
+ * TableType.java
+ *
+ * Lists the hash table strategies HashtableExperiment can run, with the name used to pick
+ * them on the command line, the label and dump file used in its output, and factories for
+ * the Object-keyed table and any primitive int, off-heap String or concurrent variants.
+ *
+ * @author Kayden Humphries
+ */
+public enum TableType {
+    LINEAR_PROBING("linear", "Linear Probing", "linear-dump.txt",
+            LinearProbing::new, IntLinearProbing::new, Utf8LinearProbing::new, ConcurrentLinearProbing::new),
+    DOUBLE_HASHING("double", "Double Hashing", "double-dump.txt",
+            DoubleHashing::new, IntDoubleHashing::new, Utf8DoubleHashing::new, ConcurrentDoubleHashing::new),
+    ROBIN_HOOD_HASHING("robin-hood", "Robin Hood Hashing", "robin-hood-dump.txt",
+            RobinHoodHashing::new, null, null, null),
+    SWISS_TABLE("swiss", "Swiss Table", "swiss-dump.txt",
+            SwissTable::new, null, null, null),
+    TRIANGULAR_PROBING("triangular", "Triangular Probing", "triangular-dump.txt",
+            TriangularProbing::new, null, null, null),
+    CUCKOO_HASHING("cuckoo", "Cuckoo Hashing", "cuckoo-dump.txt",
+            CuckooHashing::new, null, null, null),
+    HOPSCOTCH_HASHING("hopscotch", "Hopscotch Hashing", "hopscotch-dump.txt",
+            HopscotchHashing::new, null, null, null);
+
+    private final String optionName;
+    private final String label;
+    private final String dumpFile;
+    private final BiFunction<Integer, Double, Hashtable> table;
+    private final IntFunction<IntHashtable> intTable;
+    private final IntFunction<Utf8Hashtable> utf8Table;
+    private final IntFunction<ConcurrentHashtable> concurrentTable;
+
+    /**
+     * Constructor to describe a table strategy.
+     *
+     * @param optionName      the name used on the command line
+     * @param label           the name printed in experiment output
+     * @param dumpFile        the file the table is dumped to at debug level 1
+     * @param table           creates the Object-keyed table of a given capacity and max load factor
+     * @param intTable        creates the primitive int table of a given capacity, or null
+     * @param utf8Table       creates the off-heap String table of a given capacity, or null
+     * @param concurrentTable creates the concurrent table of a given capacity, or null
+     */
+    TableType(String optionName, String label, String dumpFile, BiFunction<Integer, Double, Hashtable> table,
+              IntFunction<IntHashtable> intTable, IntFunction<Utf8Hashtable> utf8Table,
+              IntFunction<ConcurrentHashtable> concurrentTable) {
+        this.optionName = optionName;
+        this.label = label;
+        this.dumpFile = dumpFile;
+        this.table = table;
+        this.intTable = intTable;
+        this.utf8Table = utf8Table;
+        this.concurrentTable = concurrentTable;
+    }
+
+    /**
+     * Finds the table type with the given command-line name.
+     *
+     * @param optionName the command-line name
+     * @return the table type, or null if there is none with that name
+     */
+    public static TableType fromOptionName(String optionName) {
+        for (TableType type : values()) {
+            if (type.optionName.equals(optionName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the name used to pick this strategy on the command line.
+     *
+     * @return the command-line name
+     */
+    public String getOptionName() {
+        return optionName;
+    }
+
+    /**
+     * Get the name printed in experiment output.
+     *
+     * @return the label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Get the file the table is dumped to at debug level 1.
+     *
+     * @return the dump file name
+     */
+    public String getDumpFile() {
+        return dumpFile;
+    }
+
+    /**
+     * Creates an empty Object-keyed table of this strategy.
+     *
+     * @param capacity the capacity of the table
+     * @return the new table
+     */
+    public Hashtable create(int capacity) {
+        return table.apply(capacity, Hashtable.DEFAULT_MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Creates an empty Object-keyed table of this strategy mixing keys with the given hash
+     * function.
+     *
+     * @param capacity     the capacity of the table
+     * @param hashFunction the hash function keys are mixed with
+     * @return the new table
+     */
+    public Hashtable create(int capacity, HashFunction hashFunction) {
+        return create(capacity, Hashtable.DEFAULT_MAX_LOAD_FACTOR, hashFunction);
+    }
+
+    /**
+     * Creates an empty Object-keyed table of this strategy that grows at the given load
+     * factor and mixes keys with the given hash function.
+     *
+     * @param capacity      the initial capacity of the table
+     * @param maxLoadFactor the load factor that triggers growth
+     * @param hashFunction  the hash function keys are mixed with
+     * @return the new table
+     */
+    public Hashtable create(int capacity, double maxLoadFactor, HashFunction hashFunction) {
+        Hashtable created = table.apply(capacity, maxLoadFactor);
+        created.setHashFunction(hashFunction);
+        return created;
+    }
+
+    /**
+     * Checks whether this strategy has a primitive int variant.
+     *
+     * @return true if createInt is supported
+     */
+    public boolean hasIntTable() {
+        return intTable != null;
+    }
+
+    /**
+     * Creates an empty primitive int table of this strategy.
+     *
+     * @param capacity the capacity of the table
+     * @return the new table
+     * @throws UnsupportedOperationException if the strategy has no int variant
+     */
+    public IntHashtable createInt(int capacity) {
+        if (intTable == null) {
+            throw new UnsupportedOperationException(label + " has no int table");
+        }
+        return intTable.apply(capacity);
+    }
+
+    /**
+     * Checks whether this strategy has a String variant keeping its keys off the heap.
+     *
+     * @return true if createUtf8 is supported
+     */
+    public boolean hasUtf8Table() {
+        return utf8Table != null;
+    }
+
+    /**
+     * Creates an empty String table of this strategy keeping its keys off the heap.
+     *
+     * @param capacity the capacity of the table
+     * @return the new table
+     * @throws UnsupportedOperationException if the strategy has no off-heap String variant
+     */
+    public Utf8Hashtable createUtf8(int capacity) {
+        if (utf8Table == null) {
+            throw new UnsupportedOperationException(label + " has no off-heap String table");
+        }
+        return utf8Table.apply(capacity);
+    }
+
+    /**
+     * Get the factory for the concurrent variant of this strategy.
+     *
+     * @return the concurrent table factory, or null if the strategy has none
+     */
+    public IntFunction<ConcurrentHashtable> getConcurrentTable() {
+        return concurrentTable;
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * TriangularProbing.java
+ *
+ * Subclass of Hashtable with power-of-two capacities, reducing hash codes to slots with a
+ * bitmask instead of the integer remainder the prime-capacity strategies pay on every
+ * probe. The i-th probe steps i slots past the previous one, so the probe sequence visits
+ * the home slot plus the triangular numbers 1, 3, 6, 10, ... past it, which covers every
+ * slot exactly once in the first m probes when m is a power of two.
+ * <p>
+ * A mask only keeps the low bits of the hash code, which for many keys, such as Dates a
+ * whole number of seconds apart, take few distinct values. h1 therefore runs the hash code
+ * through the Murmur3 finalizer before masking it, whatever hash function the table uses,
+ * making up for the spreading a prime modulus would have done. Triangular steps then
+ * break up the runs of adjacent occupied slots linear probing builds.
+ * </p>
+ * <p>
+ * Requested capacities are rounded up to the next power of two, and the table doubles
+ * when it grows.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class TriangularProbing extends Hashtable {
+
+    /** The largest power-of-two capacity a Java array can have */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Constructor to initialize the hash table with at least a given capacity
+     *
+     * @param capacity the minimum capacity of the hash table, rounded up to a power of two
+     */
+    public TriangularProbing(int capacity) {
+        super(powerOfTwoAtLeast(capacity));
+    }
+
+    /**
+     * Constructor to initialize the hash table with at least a given capacity and the load
+     * factor at which it grows
+     *
+     * @param capacity      the minimum capacity of the hash table, rounded up to a power of two
+     * @param maxLoadFactor the load factor that triggers growth
+     */
+    public TriangularProbing(int capacity, double maxLoadFactor) {
+        super(powerOfTwoAtLeast(capacity), maxLoadFactor);
+    }
+
+    /**
+     * Primary hash function for triangular probing
+     * h1(k) = fmix32(k) &amp; (m - 1), where k is the key and m is the power-of-two capacity
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed, a power of two
+     * @return the home slot of the key
+     */
+    @Override
+    public int h1(int hash, int m) {
+        return HashFunction.fmix32(hash) & (m - 1);
+    }
+
+    /**
+     * Secondary hash function for triangular probing, the size of the first step. Later
+     * steps each grow by one, whatever the key.
+     *
+     * @param hash the hash code of the key
+     * @param m    the capacity of the table being probed
+     * @return 1
+     */
+    @Override
+    public int h2(int hash, int m) {
+        return 1;
+    }
+
+    /**
+     * Walks the triangular probe sequence of a key until it finds the key or an empty slot.
+     * The number of slots examined is left in findProbes.
+     *
+     * @param k    the keys of the table to probe
+     * @param h    the cached hash codes of that table
+     * @param p    the probe counts of that table
+     * @param m    the capacity of that table, a power of two
+     * @param key  the key to look for
+     * @param hash the hash code of the key
+     * @return the slot holding the key, or -1 if the key is not in the table
+     */
+    @Override
+    protected int find(Object[] k, int[] h, int[] p, int m, Object key, int hash) {
+        int mask = m - 1;
+        int pos = h1(hash, m);
+
+        Object slotKey;
+        int probeCount = 0;
+        while (probeCount < m && (slotKey = k[pos]) != null) {
+            if (h[pos] == hash && slotKey != TOMBSTONE && keysEqual(slotKey, key)) {
+                findProbes = probeCount + 1;
+                return pos;
+            }
+            probeCount++;
+            pos = (pos + probeCount) & mask;
+        }
+        findProbes = probeCount < m ? probeCount + 1 : m;  // Count the empty slot that ended the walk
+        return -1;
+    }
+
+    /**
+     * Places a key known to be absent into the first empty or tombstoned slot of its
+     * triangular probe sequence.
+     *
+     * @param key       the key to place
+     * @param hash      the hash code of the key
+     * @param frequency the frequency count of the key
+     * @return the slot the key was placed in
+     */
+    @Override
+    protected int place(Object key, int hash, int frequency) {
+        int mask = capacity - 1;
+        int pos = h1(hash, capacity);
+        int probeCount = 1; // There is a guaranteed probe
+
+        Object slotKey;
+        while ((slotKey = keys[pos]) != null && slotKey != TOMBSTONE) {
+            pos = (pos + probeCount) & mask;
+            probeCount++;
+        }
+
+        if (slotKey == TOMBSTONE) {
+            tombstones--;
+        }
+        keys[pos] = key;
+        hashes[pos] = hash;
+        frequencies[pos] = frequency;
+        probes[pos] = probeCount;
+
+        totalProbe += probeCount;
+        return pos;
+    }
+
+    /**
+     * Rebuilds the table at the same capacity, clearing every tombstone. The in-place
+     * rebuild of Hashtable assumes a fixed step, so the live entries are copied out and
+     * placed again.
+     */
+    @Override
+    protected void compact() {
+        finishMigration();
+
+        Object[] liveKeys = keys;
+        int[] liveHashes = hashes;
+        int[] liveFrequencies = frequencies;
+        allocate(capacity);
+        tombstones = 0;
+        totalProbe = 0;
+
+        for (int i = 0; i < liveKeys.length; i++) {
+            if (liveKeys[i] != null && liveKeys[i] != TOMBSTONE) {
+                place(liveKeys[i], liveHashes[i], liveFrequencies[i]);
+            }
+        }
+    }
+
+    /**
+     * Doubles the capacity.
+     *
+     * @param capacity the current capacity
+     * @return twice the current capacity
+     * @throws IllegalArgumentException if the capacity is already MAX_CAPACITY
+     */
+    @Override
+    protected int nextCapacity(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalArgumentException("No power-of-two capacity above " + capacity);
+        }
+        return capacity << 1;
+    }
+
+    /**
+     * Rounds a capacity up to the next power of two.
+     *
+     * @param capacity the capacity
+     * @return the smallest power of two at least the capacity, or the capacity itself if it
+     *         is not positive, for the Hashtable constructor to reject
+     * @throws IllegalArgumentException if the capacity is above MAX_CAPACITY
+     */
+    private static int powerOfTwoAtLeast(int capacity) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be at most " + MAX_CAPACITY + ": " + capacity);
+        }
+        return capacity <= 1 ? capacity : Integer.highestOneBit(capacity - 1) << 1;
+    }
+}
@@ -1,3 +1,7 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * TwinPrimeGenerator.java
  *
@@ -5,26 +9,28 @@
  * that generates a value for the HashTable table size m in the range [min:max].
  * The method finds the smallest twin prime pair in the range and returns
  * the larger prime of the two.
+ * <p>
+ * Primes are found with a segmented sieve of Eratosthenes, so even ranges near
+ * Integer.MAX_VALUE are scanned quickly. For growing tables, nextCapacity(n) answers
+ * from a lazily built ladder of twin prime capacities roughly 1.5x apart.
+ * </p>
  *
  * @author Kayden Humphries
  */
 public class TwinPrimeGenerator {
 
-    /**
-     * Checks if a given number is prime.
-     *
-     * @param n the number to check for primality
-     * @return true if the number is prime, false otherwise
-     */
-    private static boolean isPrime(int n) {
-        if (n < 2) return false;
-        for (int i = 2; i <= Math.sqrt(n); i++) {
-            if (n % i == 0) {
-                return false;
-            }
-        }
-        return true;
-    }
+    /** The largest capacity the ladder reaches, leaving headroom below the array size limit */
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    // Number of candidates sieved at a time
+    private static final int SEGMENT_SIZE = 1 << 16;
+    // Growth factor between neighboring capacities of the ladder
+    private static final double LADDER_STEP = 1.5;
+
+    // Every prime up to sqrt(Integer.MAX_VALUE), used to sieve the segments
+    private static int[] basePrimes;
+    // Ascending twin prime capacities, each roughly LADDER_STEP times the last
+    private static int[] ladder;
 
     /**
      * Generates the smallest set of twin primes in the given range [min, max]
@@ -36,11 +42,111 @@ public class TwinPrimeGenerator {
      * @throws IllegalArgumentException if no twin primes are found in the given range
      */
     public static int generateTwinPrime(int min, int max) {
-        for (int i = min; i <= max - 2; i++) {
-            if (isPrime(i) && isPrime(i + 2)) {
-                return i + 2; // Return the larger prime in the twin prime pair
+        int[] primes = getBasePrimes();
+        boolean[] composite = new boolean[SEGMENT_SIZE];
+        long lastPrime = -1;
+
+        for (long low = Math.max(min, 2); low <= max; low += SEGMENT_SIZE) {
+            long high = Math.min(low + SEGMENT_SIZE - 1, max);
+            sieveSegment(primes, composite, low, high);
+
+            for (long n = low; n <= high; n++) {
+                if (!composite[(int) (n - low)]) {
+                    if (n - lastPrime == 2) {
+                        return (int) n; // Return the larger prime in the twin prime pair
+                    }
+                    lastPrime = n;
+                }
             }
         }
         throw new IllegalArgumentException("No twin primes found in the given range.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Finds the smallest capacity on the twin prime ladder that is at least n. The ladder
+     * is built on first use, after which each lookup is a binary search.
+     *
+     * @param n the minimum capacity
+     * @return the larger prime of a twin prime pair that is at least n
+     * @throws IllegalArgumentException if n is larger than the top of the ladder
+     */
+    public static int nextCapacity(long n) {
+        int[] capacities = getLadder();
+        if (n > capacities[capacities.length - 1]) {
+            throw new IllegalArgumentException("No twin prime capacity of at least " + n);
+        }
+        int index = Arrays.binarySearch(capacities, (int) Math.max(n, 0));
+        return capacities[index >= 0 ? index : -index - 1];
+    }
+
+    /**
+     * Marks the composite numbers of the range [low, high] using the base primes.
+     *
+     * @param primes    the base primes, covering sqrt(high)
+     * @param composite the segment to mark, index 0 standing for low
+     * @param low       the first number of the segment
+     * @param high      the last number of the segment
+     */
+    private static void sieveSegment(int[] primes, boolean[] composite, long low, long high) {
+        Arrays.fill(composite, 0, (int) (high - low + 1), false);
+        for (int p : primes) {
+            long square = (long) p * p;
+            if (square > high) {
+                break;
+            }
+            long start = Math.max(square, (low + p - 1) / p * p);
+            for (long multiple = start; multiple <= high; multiple += p) {
+                composite[(int) (multiple - low)] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns every prime up to sqrt(Integer.MAX_VALUE), sieving them on first use.
+     *
+     * @return the base primes in ascending order
+     */
+    private static synchronized int[] getBasePrimes() {
+        if (basePrimes == null) {
+            int limit = (int) Math.sqrt(Integer.MAX_VALUE) + 1;
+            boolean[] composite = new boolean[limit + 1];
+            List<Integer> primes = new ArrayList<>();
+            for (int i = 2; i <= limit; i++) {
+                if (!composite[i]) {
+                    primes.add(i);
+                    for (long multiple = (long) i * i; multiple <= limit; multiple += i) {
+                        composite[(int) multiple] = true;
+                    }
+                }
+            }
+            basePrimes = primes.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return basePrimes;
+    }
+
+    /**
+     * Returns the twin prime capacity ladder, building it on first use.
+     *
+     * @return the ascending ladder of capacities
+     */
+    private static synchronized int[] getLadder() {
+        if (ladder == null) {
+            List<Integer> capacities = new ArrayList<>();
+            int capacity = 5; // (3, 5) is the smallest twin prime pair
+            while (true) {
+                capacities.add(capacity);
+                long next = (long) Math.ceil(capacity * LADDER_STEP);
+                if (next > MAX_CAPACITY) {
+                    break;
+                }
+                try {
+                    capacity = generateTwinPrime((int) next, MAX_CAPACITY);
+                } catch (IllegalArgumentException e) {
+                    break;
+                }
+            }
+            ladder = capacities.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return ladder;
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Utf8DoubleHashing.java
+ *
+ * Subclass of Utf8Hashtable implementing double hashing
+ *
+ * @author Kayden Humphries
+ */
+public class Utf8DoubleHashing extends Utf8Hashtable {
+
+    /**
+     * Constructor to initialize the hash table with a given capacity
+     *
+     * @param capacity the capacity of the hash table
+     */
+    public Utf8DoubleHashing(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Primary hash function for double hashing
+     * h1(k) = k mod m, where k is the String hash code of the key and m is capacity of table
+     *
+     * @param hash the String hash code of the key
+     * @return the hash value of the key
+     */
+    @Override
+    public int h1(int hash) {
+        return positiveMod(hash, capacity);
+    }
+
+    /**
+     * Secondary hash function for double hashing
+     * h2(k) = 1 + k mod (m - 2), where k is the String hash code of the key and m is capacity of table
+     *
+     * @param hash the String hash code of the key
+     * @return the secondary hash value
+     */
+    @Override
+    public int h2(int hash) {
+        return 1 + positiveMod(hash, capacity - 2);
+    }
+}
@@ -0,0 +1,428 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utf8Hashtable.java
+ *
+ * Abstract open-addressing hash table specialized for String keys, which stores no key
+ * objects at all. The UTF-8 bytes of every new key are copied into an arena, one direct
+ * ByteBuffer outside the Java heap, and each slot only keeps the offset and length of its
+ * key's bytes next to the cached hash code, frequency count and probe count, all in
+ * parallel int arrays. The garbage collector thus finds five int arrays however many keys
+ * the table holds, where an Object-keyed table holds a String and its byte array per key.
+ * <p>
+ * Keys are compared byte for byte against the arena, after their cached hash codes match.
+ * Hash codes are those of the String, so probe sequences and dumps match the Object-keyed
+ * Hashtable of the same strategy with the identity hash function. Words can be inserted
+ * straight from the Utf8Slice a file was read into, without ever building a String. As in
+ * IntHashtable, a frequency count of 0 marks an empty slot and the capacity is fixed.
+ * </p>
+ * <p>
+ * The arena doubles when it fills, copying the bytes into a new buffer. Java 17 cannot free
+ * a direct buffer explicitly, so the old one is released once the collector finds it
+ * unreachable. Keys must be well-formed UTF-16, as an unpaired surrogate does not survive
+ * encoding to UTF-8.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public abstract class Utf8Hashtable {
+
+    /** Frequency count marking an empty slot */
+    protected static final int EMPTY = 0;
+
+    // Arena bytes reserved per slot up front, enough for the word list's average word
+    private static final int INITIAL_BYTES_PER_SLOT = 8;
+
+    // Parallel arrays holding the arena offset, byte length, hash code, frequency count and
+    // probe count of each slot's key
+    protected final int[] offsets;
+    protected final int[] lengths;
+    protected final int[] hashes;
+    protected final int[] frequencies;
+    protected final int[] probes;
+    protected int size;  // Current number of elements in the table
+    protected final int capacity;  // Size of the hash table
+    protected long totalProbe;  // Probe count of table
+    private ByteBuffer arena;  // UTF-8 bytes of every key, outside the heap
+    private int arenaUsed;  // Bytes of the arena holding keys
+    private byte[] scratch = new byte[64];  // Encoded bytes of the String being looked up
+    private ByteBuffer scratchBuffer = ByteBuffer.wrap(scratch);
+    private final Utf8Slice view = new Utf8Slice();  // Reads keys out of the arena
+    private int batchSink;  // Keeps the reads of insertAll's touch pass from being optimized away
+
+    /**
+     * Constructor to initialize the hash table with a given capacity.
+     *
+     * @param capacity the capacity of the hash table
+     */
+    public Utf8Hashtable(int capacity) {
+        if (capacity < 3) {
+            throw new IllegalArgumentException("Capacity must be at least 3: " + capacity);
+        }
+        this.capacity = capacity;
+        this.offsets = new int[capacity];
+        this.lengths = new int[capacity];
+        this.hashes = new int[capacity];
+        this.frequencies = new int[capacity];
+        this.probes = new int[capacity];
+        this.arena = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE,
+                (long) capacity * INITIAL_BYTES_PER_SLOT));
+        this.size = 0;
+    }
+
+    /**
+     * Primary hash function, mapping the String hash code of a key to its home slot.
+     *
+     * @param hash the hash code of the key
+     * @return the home slot of the key in the range [0, capacity - 1]
+     */
+    public abstract int h1(int hash);
+
+    /**
+     * Secondary hash function, mapping the String hash code of a key to its probe step size.
+     *
+     * @param hash the hash code of the key
+     * @return the probe step size (used in double hashing)
+     */
+    public abstract int h2(int hash);
+
+    /**
+     * Insert a key into the hash table. If the key already exists, its frequency count is incremented.
+     *
+     * @param key the key to insert into the table
+     * @return the position in the table the key was inserted
+     * @throws IllegalStateException if the key is new and the table is full
+     */
+    public int insert(String key) {
+        int length = encode(key);
+        return insert(scratchBuffer, 0, length, key.hashCode());
+    }
+
+    /**
+     * Insert the word a slice of UTF-8 bytes stands for, copying the bytes into the arena
+     * if the word is new, so no String is built either way.
+     *
+     * @param word the bytes of the key to insert
+     * @return the position in the table the key was inserted
+     * @throws IllegalStateException if the key is new and the table is full
+     */
+    public int insert(Utf8Slice word) {
+        return insert(word.getBuffer(), word.getOffset(), word.getByteLength(), word.hashCode());
+    }
+
+    /**
+     * Inserts the keys of a range of an array, in order, a block of Hashtable.BATCH_SIZE keys
+     * at a time. The home slot of every key in a block is read before any key is inserted,
+     * so their cache misses overlap.
+     *
+     * @param batch the keys to insert
+     * @param from  the index of the first key to insert
+     * @param to    the index after the last key to insert
+     * @return the position each key was inserted at, as insert would return it
+     * @throws IllegalStateException if a key is new and the table is full
+     */
+    public int[] insertAll(Utf8Slice[] batch, int from, int to) {
+        int[] positions = new int[to - from];
+        for (int start = from; start < to; start += Hashtable.BATCH_SIZE) {
+            int end = Math.min(start + Hashtable.BATCH_SIZE, to);
+            int sink = 0;
+            for (int i = start; i < end; i++) {
+                int home = h1(batch[i].hashCode());
+                sink += frequencies[home] + hashes[home];
+            }
+            batchSink += sink;
+            for (int i = start; i < end; i++) {
+                positions[i - from] = insert(batch[i]);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Inserts a key given as UTF-8 bytes, incrementing its frequency count if it is already
+     * in the table and otherwise copying the bytes into the arena.
+     *
+     * @param source the buffer holding the bytes of the key
+     * @param from   the index of the first byte
+     * @param length the number of bytes
+     * @param hash   the String hash code of the key
+     * @return the position in the table the key was inserted
+     * @throws IllegalStateException if the key is new and the table is full
+     */
+    private int insert(ByteBuffer source, int from, int length, int hash) {
+        int pos = h1(hash);
+        int stepSize = h2(hash);
+        int probeCount = 1; // There is a guaranteed probe
+
+        while (frequencies[pos] != EMPTY) {
+            if (hashes[pos] == hash && matches(pos, source, from, length)) {
+                frequencies[pos]++;
+                return pos;
+            }
+            if (probeCount == capacity) {
+                throw new IllegalStateException("Utf8Hashtable is full at capacity " + capacity);
+            }
+            pos = positiveMod(pos + stepSize, capacity);
+            probeCount++;
+        }
+
+        // Copy the new key into the arena and update probe count
+        offsets[pos] = append(source, from, length);
+        lengths[pos] = length;
+        hashes[pos] = hash;
+        frequencies[pos] = 1;
+        probes[pos] = probeCount;
+
+        totalProbe += probeCount;
+        size++;
+        return pos;
+    }
+
+    /**
+     * Search for a key in the hash table
+     *
+     * @param key the key to search for
+     * @return the position of the key in the table, or -1 if not found
+     */
+    public int search(String key) {
+        int length = encode(key);
+        return search(scratchBuffer, 0, length, key.hashCode());
+    }
+
+    /**
+     * Search for the word a slice of UTF-8 bytes stands for
+     *
+     * @param word the bytes of the key to search for
+     * @return the position of the key in the table, or -1 if not found
+     */
+    public int search(Utf8Slice word) {
+        return search(word.getBuffer(), word.getOffset(), word.getByteLength(), word.hashCode());
+    }
+
+    /**
+     * Searches for a key given as UTF-8 bytes.
+     *
+     * @param source the buffer holding the bytes of the key
+     * @param from   the index of the first byte
+     * @param length the number of bytes
+     * @param hash   the String hash code of the key
+     * @return the position of the key in the table, or -1 if not found
+     */
+    private int search(ByteBuffer source, int from, int length, int hash) {
+        int pos = h1(hash);
+        int stepSize = h2(hash);
+
+        for (int probeCount = 0; probeCount < capacity && frequencies[pos] != EMPTY; probeCount++) {
+            if (hashes[pos] == hash && matches(pos, source, from, length)) {
+                return pos;
+            }
+            pos = positiveMod(pos + stepSize, capacity);
+        }
+
+        return -1;  // Not found
+    }
+
+    /**
+     * Get the frequency count of a key.
+     *
+     * @param key the key to look up
+     * @return the number of times the key was inserted, or 0 if it is not in the table
+     */
+    public int getFrequency(String key) {
+        int pos = search(key);
+        return pos < 0 ? 0 : frequencies[pos];
+    }
+
+    /**
+     * Decodes the key stored in a slot.
+     *
+     * @param pos the slot
+     * @return the key, or null if the slot is empty
+     */
+    public String getKey(int pos) {
+        return frequencies[pos] == EMPTY ? null : view.set(arena, offsets[pos], lengths[pos]).toString();
+    }
+
+    /**
+     * Compares the bytes of the key in a slot with a key given as UTF-8 bytes, eight at a
+     * time while both buffers read longs in the same byte order.
+     *
+     * @param pos    the slot
+     * @param source the buffer holding the bytes of the key
+     * @param from   the index of the first byte
+     * @param length the number of bytes
+     * @return true if the bytes are equal
+     */
+    private boolean matches(int pos, ByteBuffer source, int from, int length) {
+        if (lengths[pos] != length) {
+            return false;
+        }
+        int offset = offsets[pos];
+        int i = 0;
+        if (source.order() == arena.order()) {
+            for (; i + Long.BYTES <= length; i += Long.BYTES) {
+                if (arena.getLong(offset + i) != source.getLong(from + i)) {
+                    return false;
+                }
+            }
+        }
+        for (; i < length; i++) {
+            if (arena.get(offset + i) != source.get(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the bytes of a new key to the end of the arena, doubling the arena first if
+     * they do not fit.
+     *
+     * @param source the buffer holding the bytes of the key
+     * @param from   the index of the first byte
+     * @param length the number of bytes
+     * @return the arena offset of the copied bytes
+     * @throws IllegalStateException if the arena would outgrow the largest ByteBuffer
+     */
+    private int append(ByteBuffer source, int from, int length) {
+        if (length > arena.capacity() - arenaUsed) {
+            long needed = (long) arenaUsed + length;
+            if (needed > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Utf8Hashtable arena cannot hold more than "
+                        + Integer.MAX_VALUE + " bytes");
+            }
+            long grown = Math.max(needed, 2L * arena.capacity());
+            ByteBuffer larger = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, grown));
+            larger.put(0, arena, 0, arenaUsed);
+            arena = larger;
+        }
+        int offset = arenaUsed;
+        arena.put(offset, source, from, length);
+        arenaUsed += length;
+        return offset;
+    }
+
+    /**
+     * Encodes a String as UTF-8 into the scratch buffer. ASCII Strings, every word of the
+     * word list, are copied char by char without allocating.
+     *
+     * @param key the key to encode
+     * @return the number of bytes
+     */
+    private int encode(String key) {
+        int length = key.length();
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, 2 * scratch.length)];
+            scratchBuffer = ByteBuffer.wrap(scratch);
+        }
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > scratch.length) {
+                    scratch = bytes;
+                    scratchBuffer = ByteBuffer.wrap(scratch);
+                } else {
+                    System.arraycopy(bytes, 0, scratch, 0, bytes.length);
+                }
+                return bytes.length;
+            }
+            scratch[i] = (byte) c;
+        }
+        return length;
+    }
+
+    /**
+     * Get the current size of the hash table.
+     *
+     * @return the number of elements in the hash table
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the total probe count
+     *
+     * @return total probe count
+     */
+    public long getProbeCount() {
+        return totalProbe;
+    }
+
+    /**
+     * Scans the table for the longest probe sequence any stored key needed.
+     *
+     * @return the maximum probe count, or 0 if the table is empty
+     */
+    public int getMaxProbeCount() {
+        int max = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (frequencies[i] != EMPTY) {
+                max = Math.max(max, probes[i]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Get the capacity of the hash table.
+     *
+     * @return the capacity of the hash table
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the number of arena bytes holding keys.
+     *
+     * @return the bytes used
+     */
+    public long getArenaUsed() {
+        return arenaUsed;
+    }
+
+    /**
+     * Get the number of bytes allocated outside the heap for the arena.
+     *
+     * @return the arena capacity in bytes
+     */
+    public long getArenaCapacity() {
+        return arena.capacity();
+    }
+
+    /**
+     * Computes the positive modulus of a dividend and divisor.
+     *
+     * @param dividend the dividend (numerator) of the modulus operation
+     * @param divisor the divisor (denominator) of the modulus operation
+     * @return the positive modulus result in the range [0, divisor - 1]
+     */
+    protected int positiveMod(int dividend, int divisor) {
+        int quotient = dividend % divisor;
+        if (quotient < 0)
+            quotient += divisor;
+        return quotient;
+    }
+
+    /**
+     * Dumps the hashtable to a file in the same format as Hashtable.dumpToFile. ASCII keys
+     * are written straight from the arena without building a String.
+     *
+     * @param fileName the file to dump to
+     */
+    public void dumpToFile(String fileName) {
+        try (DumpWriter out = new DumpWriter(fileName)) {
+            for (int i = 0; i < capacity; i++) {
+                if (frequencies[i] != EMPTY) {
+                    out.writeSlot(i, view.set(arena, offsets[i], lengths[i]), frequencies[i], probes[i]);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Unable to write to file " + fileName);
+        }
+    }
+}
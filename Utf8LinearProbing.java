@@ -0,0 +1,41 @@
+/**
+ * Utf8LinearProbing.java
+ *
+ * Subclass of Utf8Hashtable implementing linear probing
+ *
+ * @author Kayden Humphries
+ */
+public class Utf8LinearProbing extends Utf8Hashtable {
+
+    /**
+     * Constructor to initialize the hash table with a given capacity
+     *
+     * @param capacity the capacity of the hash table
+     */
+    public Utf8LinearProbing(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Primary hash function for linear probing
+     * h1(k) = k mod m, where k is the String hash code of the key and m is capacity of table
+     *
+     * @param hash the String hash code of the key
+     * @return the hash value of the key
+     */
+    @Override
+    public int h1(int hash) {
+        return positiveMod(hash, capacity);
+    }
+
+    /**
+     * Secondary hash function for linear probing is 1
+     *
+     * @param hash the String hash code of the key
+     * @return 1
+     */
+    @Override
+    public int h2(int hash) {
+        return 1;
+    }
+}
@@ -0,0 +1,181 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utf8Slice.java
+ *
+ * A reusable KeyView over a range of UTF-8 bytes in a ByteBuffer, standing for the String
+ * those bytes decode to. For pure ASCII bytes the String hash code and comparisons are
+ * computed straight from the bytes, so nothing is allocated until the key is materialized.
+ * Slices containing other characters are decoded once to keep hash codes and equality
+ * identical to the String. The slice reads as a CharSequence of the String's chars.
+ *
+ * @author Kayden Humphries
+ */
+public class Utf8Slice implements KeyView, CharSequence {
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+    private int hash;
+    private String decoded;  // Only set for slices that are not pure ASCII
+
+    /**
+     * Points this slice at a new range of bytes.
+     *
+     * @param buffer the buffer holding the bytes
+     * @param offset the index of the first byte
+     * @param length the number of bytes
+     * @return this slice
+     */
+    public Utf8Slice set(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.decoded = null;
+
+        // Same polynomial as String.hashCode(), valid while every byte is one ASCII char
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = buffer.get(i);
+            if (b < 0) {
+                decoded = decode();
+                h = decoded.hashCode();
+                break;
+            }
+            h = 31 * h + b;
+        }
+        this.hash = h;
+        return this;
+    }
+
+    /**
+     * Get the buffer holding the bytes of this slice.
+     *
+     * @return the buffer
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Get the index of the first byte of this slice in its buffer.
+     *
+     * @return the offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get the number of UTF-8 bytes in this slice, which differs from length() for
+     * characters outside ASCII.
+     *
+     * @return the byte length
+     */
+    public int getByteLength() {
+        return length;
+    }
+
+    /**
+     * Returns the number of chars in the String this slice stands for.
+     *
+     * @return the char length
+     */
+    @Override
+    public int length() {
+        return decoded != null ? decoded.length() : length;
+    }
+
+    /**
+     * Returns a char of the String this slice stands for.
+     *
+     * @param index the index of the char
+     * @return the char
+     */
+    @Override
+    public char charAt(int index) {
+        if (decoded != null) {
+            return decoded.charAt(index);
+        }
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        return (char) buffer.get(offset + index);
+    }
+
+    /**
+     * Returns part of the String this slice stands for.
+     *
+     * @param start the index of the first char
+     * @param end   the index after the last char
+     * @return the chars in that range
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * Returns the String hash code of the decoded bytes.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Checks whether a stored key is the String these bytes decode to.
+     *
+     * @param key the stored key to compare against
+     * @return true if the key is an equal String
+     */
+    @Override
+    public boolean matches(Object key) {
+        if (decoded != null) {
+            return decoded.equals(key);
+        }
+        if (!(key instanceof String s) || s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != buffer.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the bytes into the String this slice stands for.
+     *
+     * @return the String
+     */
+    @Override
+    public Object materialize() {
+        return decoded != null ? decoded : decode();
+    }
+
+    /**
+     * Decodes the bytes into a String.
+     *
+     * @return the String
+     */
+    @Override
+    public String toString() {
+        return (String) materialize();
+    }
+
+    /**
+     * Copies the bytes out of the buffer and decodes them as UTF-8.
+     *
+     * @return the decoded String
+     */
+    private String decode() {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
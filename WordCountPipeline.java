@@ -0,0 +1,388 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WordCountPipeline.java
+ *
+ * Counts the words of many text files in three stages:
+ * <ol>
+ *     <li>A pool of reader threads reads and tokenizes the files concurrently, one file
+ *     per task, splitting every line on ASCII whitespace.</li>
+ *     <li>Each word is routed by ShardedCounts.shardOf to one of K shards. A shard is a
+ *     Hashtable written by a single thread, which takes batches of words from its own
+ *     bounded queue, so the tables need no locking.</li>
+ *     <li>Once every file is read and every queue drained, the shard tables are returned
+ *     as one merged ShardedCounts view.</li>
+ * </ol>
+ * <p>
+ * Readers hand words over BATCH_WORDS at a time, so a queue operation is paid per batch
+ * rather than per word, and shards load each batch through insertAll. A word is a Utf8Slice
+ * over the mapped bytes of its file, so only words new to a shard are ever built as Strings.
+ * Shards hand emptied batches back to the readers through a free list, so once the pipeline
+ * is running, tokenizing allocates nothing. A full queue blocks
+ * its readers: the number of blocked puts, the time readers spent blocked and the deepest
+ * each queue got are the backpressure report, and together with each shard's busy and idle
+ * time they show whether there are too few shards for the readers or too many for the
+ * cores.
+ * </p>
+ * <p>
+ * Every stage runs on platform threads: Java 17 has no virtual threads, and the readers
+ * spend their time tokenizing mapped files rather than waiting on I/O.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+public class WordCountPipeline {
+
+    /** Number of words handed from a reader to a shard at a time */
+    public static final int BATCH_WORDS = 256;
+    /** Load factor at which shard tables grow */
+    public static final double SHARD_LOAD_FACTOR = 0.75;
+    /** Default number of batches a shard's queue holds */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    // Initial capacity of every shard table, which grows from there
+    private static final int INITIAL_SHARD_CAPACITY = TwinPrimeGenerator.nextCapacity(1 << 14);
+    // Sent to every shard once all files are read, never inserted
+    private static final WordBatch END = new WordBatch();
+
+    private final List<Path> files;
+    private final int readers;
+    private final int queueCapacity;
+    private final TableType strategy;
+    private final Shard[] shards;
+
+    // Stage results, filled in by run
+    private final List<FileStats> fileStats = new ArrayList<>();
+    private long readNanos;  // From the start until the last file was read
+    private long drainNanos;  // From the last file read until every shard finished
+
+    /**
+     * Constructor to set up a pipeline over a list of files.
+     *
+     * @param files         the files to count the words of
+     * @param readers       the number of reader threads
+     * @param shards        the number of shard tables and writer threads
+     * @param queueCapacity the number of batches each shard's queue holds
+     * @param strategy      the table strategy of the shards
+     * @param hashFunction  the hash function the shard tables mix keys with
+     */
+    public WordCountPipeline(List<Path> files, int readers, int shards, int queueCapacity,
+                             TableType strategy, HashFunction hashFunction) {
+        if (readers < 1 || shards < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Readers, shards and queue capacity must be positive");
+        }
+        this.files = files;
+        this.readers = readers;
+        this.queueCapacity = queueCapacity;
+        this.strategy = strategy;
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(strategy.create(INITIAL_SHARD_CAPACITY, SHARD_LOAD_FACTOR, hashFunction),
+                    queueCapacity);
+        }
+    }
+
+    /**
+     * Runs the pipeline over every file. A pipeline can only be run once.
+     *
+     * @return the merged view of the word counts
+     * @throws IOException          if a file cannot be read
+     * @throws InterruptedException if interrupted while waiting for a stage
+     */
+    public ShardedCounts run() throws IOException, InterruptedException {
+        Thread[] writers = new Thread[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            writers[i] = new Thread(shards[i], "shard-" + i);
+            writers[i].start();
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger readerId = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(readers,
+                task -> new Thread(task, "reader-" + readerId.getAndIncrement()));
+        Throwable readFailure = null;
+        try {
+            List<Future<FileStats>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(pool.submit(() -> readFile(file)));
+            }
+            for (Future<FileStats> future : futures) {
+                try {
+                    fileStats.add(future.get());
+                } catch (ExecutionException e) {
+                    if (readFailure == null) {
+                        readFailure = e.getCause();
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long readDone = System.nanoTime();
+        readNanos = readDone - start;
+
+        // The shards keep draining after a failed read, so no reader is left blocked
+        for (Shard shard : shards) {
+            shard.queue.put(END);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        drainNanos = System.nanoTime() - readDone;
+
+        if (readFailure instanceof IOException e) {
+            throw e;
+        } else if (readFailure != null) {
+            throw new RuntimeException("Reading failed.", readFailure);
+        }
+        Hashtable[] tables = new Hashtable[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[i].failure != null) {
+                throw new RuntimeException("Shard " + i + " failed.", shards[i].failure);
+            }
+            tables[i] = shards[i].table;
+        }
+        return new ShardedCounts(tables);
+    }
+
+    /**
+     * Reads one file, tokenizing the bytes of every line on ASCII whitespace and routing
+     * each word to its shard in batches. Multi-byte characters never contain ASCII bytes,
+     * so words are split the same as in the decoded text, except at non-ASCII whitespace.
+     *
+     * @param file the file to read
+     * @return what reading the file took
+     * @throws IOException          if the file cannot be read
+     * @throws InterruptedException if interrupted while blocked on a full queue
+     */
+    private FileStats readFile(Path file) throws IOException, InterruptedException {
+        FileStats stats = new FileStats();
+        stats.bytes = Files.size(file);
+        long start = System.nanoTime();
+        WordBatch[] pending = new WordBatch[shards.length];
+        Utf8Slice spare = new Utf8Slice();
+        for (int shard = 0; shard < shards.length; shard++) {
+            pending[shard] = shards[shard].emptyBatch();
+        }
+
+        try (MappedLineReader reader = new MappedLineReader(file)) {
+            Utf8Slice line;
+            while ((line = reader.nextLine()) != null) {
+                stats.lines++;
+                ByteBuffer bytes = line.getBuffer();
+                int end = line.getOffset() + line.getByteLength();
+                int i = line.getOffset();
+                while (i < end) {
+                    while (i < end && isWhitespace(bytes.get(i))) {
+                        i++;
+                    }
+                    int begin = i;
+                    while (i < end && !isWhitespace(bytes.get(i))) {
+                        i++;
+                    }
+                    if (i == begin) {
+                        continue;
+                    }
+                    // The word's slice swaps places with the batch slot it goes in, so no slice is copied
+                    Utf8Slice word = spare.set(bytes, begin, i - begin);
+                    int shard = ShardedCounts.shardOf(word, shards.length);
+                    WordBatch batch = pending[shard];
+                    spare = batch.words[batch.size];
+                    batch.words[batch.size++] = word;
+                    if (batch.size == BATCH_WORDS) {
+                        send(shard, batch, stats);
+                        pending[shard] = shards[shard].emptyBatch();
+                    }
+                    stats.words++;
+                }
+            }
+        }
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (pending[shard].size > 0) {
+                send(shard, pending[shard], stats);
+            }
+        }
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    /**
+     * Hands a batch of words to a shard, recording the wait if its queue is full.
+     *
+     * @param shard the shard index
+     * @param batch the words
+     * @param stats the stats of the file being read
+     * @throws InterruptedException if interrupted while blocked on the full queue
+     */
+    private void send(int shard, WordBatch batch, FileStats stats) throws InterruptedException {
+        BlockingQueue<WordBatch> queue = shards[shard].queue;
+        if (!queue.offer(batch)) {
+            long blockedAt = System.nanoTime();
+            queue.put(batch);
+            stats.blockedNanos += System.nanoTime() - blockedAt;
+            stats.blockedPuts++;
+        }
+    }
+
+    /**
+     * Checks whether a byte of UTF-8 text is an ASCII whitespace character, as
+     * Character.isWhitespace defines them.
+     *
+     * @param b the byte
+     * @return true if the byte is ASCII whitespace
+     */
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && Character.isWhitespace(b);
+    }
+
+    /**
+     * Prints the throughput of every stage and the backpressure on the shard queues. Only
+     * meaningful after run.
+     *
+     * @param counts the merged view run returned
+     */
+    public void printReport(ShardedCounts counts) {
+        long bytes = 0;
+        long lines = 0;
+        long words = 0;
+        long readerNanos = 0;
+        long blockedNanos = 0;
+        long blockedPuts = 0;
+        for (FileStats stats : fileStats) {
+            bytes += stats.bytes;
+            lines += stats.lines;
+            words += stats.words;
+            readerNanos += stats.nanos;
+            blockedNanos += stats.blockedNanos;
+            blockedPuts += stats.blockedPuts;
+        }
+
+        System.out.printf("WordCountPipeline: %d file(s), %d reader thread(s), %d shard(s) using %s, "
+                        + "queues of %d batches of %d words\n",
+                files.size(), readers, shards.length, strategy.getLabel(), queueCapacity, BATCH_WORDS);
+        System.out.printf("\t\tRead stage: %d words, %d lines, %.1f MB in %.1f ms = %.0f words/ms, %.1f MB/s\n",
+                words, lines, bytes / 1e6, readNanos / 1e6, words / (readNanos / 1e6), bytes / 1e6 / (readNanos / 1e9));
+        System.out.printf("\t\tBackpressure: readers blocked on full queues %d time(s) for %.1f ms, %.1f%% of reader time\n",
+                blockedPuts, blockedNanos / 1e6, readerNanos == 0 ? 0 : 100.0 * blockedNanos / readerNanos);
+        System.out.printf("\t\tShard stage: finished %.1f ms after the last file was read\n", drainNanos / 1e6);
+
+        long totalNanos = readNanos + drainNanos;
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            System.out.printf("\t\t  shard %d: %d words, %d keys, busy %.1f ms (%.0f%%), idle %.1f ms, "
+                            + "%.0f words/ms busy, max queue %d/%d\n",
+                    i, shard.words, shard.table.getSize(), shard.busyNanos / 1e6, 100.0 * shard.busyNanos / totalNanos,
+                    shard.idleNanos / 1e6, shard.busyNanos == 0 ? 0 : shard.words / (shard.busyNanos / 1e6),
+                    shard.maxDepth, queueCapacity);
+        }
+        System.out.printf("\t\tMerged: %d distinct words, %d total in %.1f ms = %.0f words/ms end to end\n",
+                counts.getSize(), counts.getTotal(), totalNanos / 1e6, words / (totalNanos / 1e6));
+    }
+
+    /**
+     * What reading one file took.
+     */
+    private static class FileStats {
+        long bytes;
+        long lines;
+        long words;
+        long nanos;
+        long blockedNanos;  // Time spent blocked on full queues
+        long blockedPuts;  // Number of batches that had to wait for queue space
+    }
+
+    /**
+     * Up to BATCH_WORDS words handed from a reader to a shard at once, each a Utf8Slice
+     * over the bytes of a mapped file. A batch is reused once its shard has inserted it.
+     */
+    private static class WordBatch {
+        final Utf8Slice[] words = new Utf8Slice[BATCH_WORDS];
+        int size;
+
+        WordBatch() {
+            for (int i = 0; i < BATCH_WORDS; i++) {
+                words[i] = new Utf8Slice();
+            }
+        }
+    }
+
+    /**
+     * A shard table with its queue, inserted into only by the thread running it. Its
+     * counters are plain fields read after that thread is joined.
+     */
+    private static class Shard implements Runnable {
+        final Hashtable table;
+        final BlockingQueue<WordBatch> queue;
+        final Queue<WordBatch> free = new ConcurrentLinkedQueue<>();  // Batches the shard is done with
+        long words;
+        long busyNanos;  // Time spent inserting
+        long idleNanos;  // Time spent waiting for a batch
+        int maxDepth;  // Most batches seen still waiting right after a take
+        Throwable failure;
+
+        Shard(Hashtable table, int queueCapacity) {
+            this.table = table;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        /**
+         * Takes an empty batch from the free list, or allocates one if every batch is still
+         * queued or held by a reader.
+         *
+         * @return an empty batch
+         */
+        WordBatch emptyBatch() {
+            WordBatch batch = free.poll();
+            return batch != null ? batch : new WordBatch();
+        }
+
+        /**
+         * Inserts batches from the queue until the end marker arrives. After a failed
+         * insert, including an Error such as running out of memory, the remaining batches
+         * are drained without inserting, so readers are never left blocked.
+         */
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    long waitStart = System.nanoTime();
+                    WordBatch batch = queue.take();
+                    long taken = System.nanoTime();
+                    idleNanos += taken - waitStart;
+                    maxDepth = Math.max(maxDepth, queue.size());
+                    if (batch == END) {
+                        return;
+                    }
+                    if (failure == null) {
+                        try {
+                            table.insertAll(batch.words, 0, batch.size);
+                            words += batch.size;
+                            batch.size = 0;
+                            free.offer(batch);
+                        } catch (Throwable e) {
+                            failure = e;
+                        }
+                    }
+                    busyNanos += System.nanoTime() - taken;
+                }
+            } catch (InterruptedException e) {
+                failure = e;
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package hashtables;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HashtableBenchmark.java
+ *
+ * JMH benchmarks measuring insert and search throughput of every Hashtable strategy
+ * across load factors and key types. Every benchmark invocation performs KEYS operations,
+ * so the reported scores and the gc.alloc.rate.norm of the gc profiler are per operation.
+ * <p>
+ * The table capacity is the smallest twin prime that holds KEYS keys at the given load
+ * factor, so every load factor inserts the same number of keys.
+ * </p>
+ * <p>
+ * Run with ./run-benchmarks.sh from the project root.
+ * </p>
+ *
+ * @author Kayden Humphries
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashtableBenchmark {
+
+    /** Number of keys inserted or searched per benchmark invocation */
+    public static final int KEYS = 1 << 15;
+
+    /** Number of entries the top-k benchmarks ask for */
+    public static final int TOP_K = 10;
+
+    /** Number of keys streamed through the bounded table per cacheInsert invocation */
+    public static final int CACHE_STREAM = 4 * KEYS;
+
+    /** Number of entries the bounded table of cacheInsert holds, a quarter of the keys */
+    public static final int CACHE_SIZE = KEYS / 4;
+
+    @Param({"LinearProbing", "DoubleHashing", "RobinHoodHashing", "SwissTable", "CuckooHashing",
+            "HopscotchHashing"})
+    public String strategy;
+
+    @Param({"0.5", "0.6", "0.7", "0.8", "0.9", "0.95", "0.99"})
+    public double loadFactor;
+
+    @Param({"random", "date", "word"})
+    public String keyType;
+
+    /** Hash function keys are mixed with, any of HashFunction's option names */
+    @Param({"identity"})
+    public String hash;
+
+    /** Whether the tables check a Bloom filter before probing, -p bloom=false,true to compare */
+    @Param({"false"})
+    public boolean bloom;
+
+    private int capacity;
+    private Object[] keys;       // Distinct keys that get inserted
+    private Object[] missKeys;   // Distinct keys never inserted
+    private Object[] cacheStream;  // Skewed draws from keys, earlier keys drawn far more often
+    private Hashtable fullTable;
+
+    /**
+     * Generates the key sets and a fully loaded table for the search benchmarks.
+     *
+     * @throws IOException if the word list cannot be read
+     */
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        Object[] all = generateKeys(keyType, 2 * KEYS);
+        keys = Arrays.copyOfRange(all, 0, KEYS);
+        missKeys = Arrays.copyOfRange(all, KEYS, 2 * KEYS);
+
+        // Cubing a uniform draw makes the first tenth of the keys take about 46% of the stream
+        Random random = new Random(KEYS);
+        cacheStream = new Object[CACHE_STREAM];
+        for (int i = 0; i < CACHE_STREAM; i++) {
+            cacheStream[i] = keys[(int) (KEYS * Math.pow(random.nextDouble(), 3))];
+        }
+
+        int minCapacity = (int) Math.ceil(KEYS / loadFactor);
+        capacity = TwinPrimeGenerator.generateTwinPrime(minCapacity, 2 * minCapacity);
+
+        fullTable = newTable(strategy, capacity);
+        fullTable.setHashFunction(HashFunction.fromOptionName(hash));
+        fullTable.setBloomFilterEnabled(bloom);
+        for (Object key : keys) {
+            fullTable.insert(key);
+        }
+    }
+
+    /**
+     * Holds the empty table filled by each invocation of the insert benchmark. It lives in
+     * its own state so only the insert benchmark pays for creating it.
+     */
+    @State(Scope.Thread)
+    public static class EmptyTable {
+        private Hashtable table;
+
+        /**
+         * Creates the empty table outside of the measured time. The gc profiler still counts
+         * its slot arrays, adding roughly 16 bytes per slot divided by KEYS to insert's B/op.
+         *
+         * @param benchmark the benchmark state holding the strategy and capacity
+         */
+        @Setup(Level.Invocation)
+        public void setUp(HashtableBenchmark benchmark) {
+            table = newTable(benchmark.strategy, benchmark.capacity);
+            table.setHashFunction(HashFunction.fromOptionName(benchmark.hash));
+            table.setBloomFilterEnabled(benchmark.bloom);
+        }
+    }
+
+    /**
+     * Holds the empty table bounded to CACHE_SIZE entries that each invocation of the cache
+     * benchmark streams keys through.
+     */
+    @State(Scope.Thread)
+    public static class BoundedTable {
+        private Hashtable table;
+
+        /**
+         * Creates the bounded table outside of the measured time.
+         *
+         * @param benchmark the benchmark state holding the strategy and capacity
+         */
+        @Setup(Level.Invocation)
+        public void setUp(HashtableBenchmark benchmark) {
+            table = newTable(benchmark.strategy, benchmark.capacity);
+            table.setHashFunction(HashFunction.fromOptionName(benchmark.hash));
+            table.setBloomFilterEnabled(benchmark.bloom);
+            table.setMaxSize(CACHE_SIZE);
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counts of the cache benchmark, which JMH reports next to its
+     * score as totals per iteration. The hit ratio is hits / (hits + misses).
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class CacheCounters {
+        public long hits;
+        public long misses;
+        public long evictions;
+
+        /**
+         * Starts every iteration from zero.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+            evictions = 0;
+        }
+    }
+
+    /**
+     * Inserts KEYS distinct keys into an empty table up to the load factor.
+     *
+     * @param emptyTable the empty table to fill
+     * @return the filled table
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public Hashtable insert(EmptyTable emptyTable) {
+        Hashtable table = emptyTable.table;
+        for (Object key : keys) {
+            table.insert(key);
+        }
+        return table;
+    }
+
+    /**
+     * Inserts KEYS distinct keys into an empty table up to the load factor through the
+     * batch path.
+     *
+     * @param emptyTable the empty table to fill
+     * @return the positions the keys were inserted at
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public int[] insertAll(EmptyTable emptyTable) {
+        return emptyTable.table.insertAll(keys);
+    }
+
+    /**
+     * Streams CACHE_STREAM skewed keys through a table bounded to CACHE_SIZE entries,
+     * evicting with the CLOCK policy once it is full.
+     *
+     * @param bounded  the bounded table to stream through
+     * @param counters collects the hit, miss and eviction counts
+     * @return the table
+     */
+    @Benchmark
+    @OperationsPerInvocation(CACHE_STREAM)
+    public Hashtable cacheInsert(BoundedTable bounded, CacheCounters counters) {
+        Hashtable table = bounded.table;
+        for (Object key : cacheStream) {
+            table.insert(key);
+        }
+        ClockCache cache = table.getCache();
+        counters.hits += cache.getHitCount();
+        counters.misses += cache.getMissCount();
+        counters.evictions += cache.getEvictionCount();
+        return table;
+    }
+
+    /**
+     * Inserts KEYS keys that are already in the table, only bumping frequency counts.
+     *
+     * @return the table
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public Hashtable insertDuplicate() {
+        Hashtable table = fullTable;
+        for (Object key : keys) {
+            table.insert(key);
+        }
+        return table;
+    }
+
+    /**
+     * Searches for KEYS keys that are all in the table.
+     *
+     * @param blackhole consumes the search results
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public void searchHit(Blackhole blackhole) {
+        Hashtable table = fullTable;
+        for (Object key : keys) {
+            blackhole.consume(table.search(key));
+        }
+    }
+
+    /**
+     * Searches for KEYS keys that are not in the table.
+     *
+     * @param blackhole consumes the search results
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public void searchMiss(Blackhole blackhole) {
+        Hashtable table = fullTable;
+        for (Object key : missKeys) {
+            blackhole.consume(table.search(key));
+        }
+    }
+
+    /**
+     * Searches for KEYS keys that are all in the table through the batch path.
+     *
+     * @return the search results
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public HashObject[] searchAllHit() {
+        return fullTable.searchAll(keys);
+    }
+
+    /**
+     * Searches for KEYS keys that are not in the table through the batch path.
+     *
+     * @return the search results
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public HashObject[] searchAllMiss() {
+        return fullTable.searchAll(missKeys);
+    }
+
+    /**
+     * Finds the TOP_K most frequent of the table's KEYS entries with the bounded heap.
+     *
+     * @return the most frequent entries
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public List<HashObject> topK() {
+        return fullTable.topK(TOP_K);
+    }
+
+    /**
+     * Finds the TOP_K most frequent of the table's KEYS entries by sorting every entry, the
+     * baseline topK avoids.
+     *
+     * @return the most frequent entries
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public List<HashObject> topKBySorting() {
+        return fullTable.stream()
+                .sorted(Comparator.comparingInt(HashObject::getFrequencyCount).reversed())
+                .limit(TOP_K)
+                .toList();
+    }
+
+    /**
+     * Creates an empty table of the named strategy.
+     *
+     * @param strategy the Hashtable subclass name
+     * @param capacity the capacity of the table
+     * @return the new table
+     */
+    static Hashtable newTable(String strategy, int capacity) {
+        return switch (strategy) {
+            case "LinearProbing" -> new LinearProbing(capacity);
+            case "DoubleHashing" -> new DoubleHashing(capacity);
+            case "RobinHoodHashing" -> new RobinHoodHashing(capacity);
+            case "SwissTable" -> new SwissTable(capacity);
+            case "CuckooHashing" -> new CuckooHashing(capacity);
+            case "HopscotchHashing" -> new HopscotchHashing(capacity);
+            default -> throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        };
+    }
+
+    /**
+     * Generates distinct keys of the given type, in the same style as HashtableExperiment's
+     * data sources.
+     *
+     * @param keyType random, date or word
+     * @param count   the number of distinct keys to generate
+     * @return the keys
+     * @throws IOException if the word list cannot be read
+     */
+    static Object[] generateKeys(String keyType, int count) throws IOException {
+        Set<Object> distinct = new LinkedHashSet<>();
+        switch (keyType) {
+            case "random" -> {
+                Random rand = new Random(42);
+                while (distinct.size() < count) {
+                    distinct.add(rand.nextInt());
+                }
+            }
+            case "date" -> {
+                long time = 1_700_000_000_000L;
+                for (int i = 0; i < count; i++) {
+                    distinct.add(new Date(time + 1000L * i));
+                }
+            }
+            case "word" -> {
+                for (String word : Files.readAllLines(Path.of("word-list.txt"))) {
+                    distinct.add(word);
+                    if (distinct.size() == count) {
+                        break;
+                    }
+                }
+                if (distinct.size() < count) {
+                    throw new IllegalStateException("word-list.txt has fewer than " + count + " distinct words");
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown key type: " + keyType);
+        }
+        return distinct.toArray();
+    }
+}
@@ -0,0 +1,50 @@
+#!/bin/bash
+#
+# Runs the JMH benchmarks in benchmarks/ with the gc profiler, so allocation per
+# operation is reported next to throughput. Any arguments are passed on to JMH,
+# for example:
+#
+#   ./run-benchmarks.sh HashtableBenchmark.searchMiss -p loadFactor=0.9,0.99
+#
+# The JMH jars are downloaded into lib/ on the first run.
+
+JMH_VERSION=1.37
+MAVEN=https://repo1.maven.org/maven2
+LIB=lib
+BUILD=build/benchmarks
+
+function fetch() {
+	path=$1
+	jar=$(basename $path)
+	if ! test -f $LIB/$jar
+	then
+		echo "Downloading $jar"
+		curl -sSfL -o $LIB/$jar $MAVEN/$path || exit 1
+	fi
+	CLASSPATH=$CLASSPATH:$LIB/$jar
+}
+
+mkdir -p $LIB
+CLASSPATH=""
+fetch org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar
+fetch org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar
+fetch net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar
+fetch org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar
+CLASSPATH=${CLASSPATH#:}
+
+# JMH does not support benchmarks in the default package, so the sources are
+# compiled as a copy placed in the same package as the benchmarks
+echo
+echo "Compiling the source code and benchmarks"
+echo
+rm -rf $BUILD
+mkdir -p $BUILD/src/hashtables $BUILD/classes
+for f in *.java
+do
+	{ echo "package hashtables;"; cat $f; } > $BUILD/src/hashtables/$f
+done
+
+javac -encoding UTF-8 -cp $CLASSPATH -processorpath $CLASSPATH -d $BUILD/classes \
+	$BUILD/src/hashtables/*.java benchmarks/hashtables/*.java || exit 1
+
+java -cp $CLASSPATH:$BUILD/classes org.openjdk.jmh.Main -prof gc "$@"